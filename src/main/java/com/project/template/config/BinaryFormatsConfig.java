@@ -0,0 +1,79 @@
+package com.project.template.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+import java.util.List;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * CBOR and Smile for service-to-service calls, picked by the Accept (and
+ * Content-Type) header. Both mappers come from Boot's builder so they share the
+ * spring.jackson settings and modules of the JSON one. They are placed right
+ * after the JSON converter, so "*&#47;*" and browsers still get JSON.
+ */
+@Configuration
+public class BinaryFormatsConfig implements WebMvcConfigurer {
+
+  public static final String APPLICATION_SMILE_VALUE = "application/x-jackson-smile";
+
+  private final ObjectProvider<Jackson2ObjectMapperBuilder> objectMapperBuilder;
+
+  public BinaryFormatsConfig(
+    ObjectProvider<Jackson2ObjectMapperBuilder> objectMapperBuilder
+  ) {
+    this.objectMapperBuilder = objectMapperBuilder;
+  }
+
+  @Override
+  public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+    converters.removeIf(converter ->
+      converter instanceof MappingJackson2CborHttpMessageConverter ||
+      converter instanceof MappingJackson2SmileHttpMessageConverter
+    );
+    int json = 0;
+    while (
+      json < converters.size() &&
+      !(converters.get(json) instanceof MappingJackson2HttpMessageConverter)
+    ) {
+      json++;
+    }
+    int position = Math.min(json + 1, converters.size());
+    converters.add(
+      position,
+      new MappingJackson2CborHttpMessageConverter(
+        cborObjectMapper(objectMapperBuilder.getObject())
+      )
+    );
+    converters.add(
+      position + 1,
+      new MappingJackson2SmileHttpMessageConverter(
+        smileObjectMapper(objectMapperBuilder.getObject())
+      )
+    );
+  }
+
+  static ObjectMapper cborObjectMapper(Jackson2ObjectMapperBuilder builder) {
+    return builder.factory(new CBORFactory()).build();
+  }
+
+  /**
+   * Back-references repeated string values (error messages, names in batch
+   * responses) the way Smile already does for property names.
+   */
+  static ObjectMapper smileObjectMapper(Jackson2ObjectMapperBuilder builder) {
+    SmileFactory smileFactory = SmileFactory
+      .builder()
+      .enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES)
+      .build();
+    return builder.factory(smileFactory).build();
+  }
+}
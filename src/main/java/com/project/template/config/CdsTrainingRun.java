@@ -0,0 +1,53 @@
+package com.project.template.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.project.template.exception.ApiError;
+import com.project.template.model.User;
+import java.time.LocalDateTime;
+import java.util.List;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+/**
+ * Class Data Sharing training run (cds profile): once the context is ready it
+ * touches the JSON paths startup alone doesn't load and exits, so the JVM can
+ * dump the loaded classes with -XX:ArchiveClassesAtExit.
+ */
+@Slf4j
+@Component
+@Profile("cds")
+public class CdsTrainingRun implements ApplicationListener<ApplicationReadyEvent> {
+
+  private final ObjectMapper objectMapper;
+
+  public CdsTrainingRun(ObjectMapper objectMapper) {
+    this.objectMapper = objectMapper;
+  }
+
+  @Override
+  public void onApplicationEvent(ApplicationReadyEvent event) {
+    try {
+      objectMapper.writeValueAsString(
+        User.builder().id(1L).email("cds@training").name("cds").build()
+      );
+      objectMapper.writeValueAsString(
+        ApiError
+          .builder()
+          .code(400)
+          .status("Bad Request")
+          .message("cds")
+          .errors(List.of("cds"))
+          .timestamp(LocalDateTime.now())
+          .build()
+      );
+    } catch (Exception ex) {
+      log.warn("CDS training serialization failed: {}", ex.getMessage());
+    }
+    log.info("CDS training run finished, exiting.");
+    System.exit(SpringApplication.exit(event.getApplicationContext()));
+  }
+}
@@ -0,0 +1,57 @@
+package com.project.template.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javax.sql.DataSource;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+@Configuration
+@ConditionalOnProperty(prefix = "datasource.routing", name = "enabled", havingValue = "true")
+public class DataSourceRoutingConfig {
+
+  @Bean
+  ReplicaRoutingDataSource replicaRoutingDataSource(
+    DataSourceProperties dataSourceProperties,
+    ReplicaRoutingProperties replicaRoutingProperties,
+    MeterRegistry meterRegistry
+  ) {
+    HikariDataSource primary = dataSourceProperties
+      .initializeDataSourceBuilder()
+      .type(HikariDataSource.class)
+      .build();
+    primary.setPoolName(ReplicaRoutingDataSource.PRIMARY);
+    primary.setMetricRegistry(meterRegistry);
+
+    Map<String, DataSource> replicas = new LinkedHashMap<>();
+    for (int i = 0; i < replicaRoutingProperties.getReplicas().size(); i++) {
+      ReplicaRoutingProperties.Replica replica = replicaRoutingProperties
+        .getReplicas()
+        .get(i);
+      HikariDataSource replicaDataSource = new HikariDataSource();
+      replicaDataSource.setPoolName("replica-" + i);
+      replicaDataSource.setJdbcUrl(replica.getUrl());
+      replicaDataSource.setUsername(replica.getUsername());
+      replicaDataSource.setPassword(replica.getPassword());
+      replicaDataSource.setReadOnly(true);
+      if (replica.getMaximumPoolSize() != null) {
+        replicaDataSource.setMaximumPoolSize(replica.getMaximumPoolSize());
+      }
+      replicaDataSource.setMetricRegistry(meterRegistry);
+      replicas.put(replicaDataSource.getPoolName(), replicaDataSource);
+    }
+    return new ReplicaRoutingDataSource(primary, replicas, meterRegistry);
+  }
+
+  @Bean
+  @Primary
+  DataSource dataSource(ReplicaRoutingDataSource replicaRoutingDataSource) {
+    return new LazyConnectionDataSourceProxy(replicaRoutingDataSource);
+  }
+}
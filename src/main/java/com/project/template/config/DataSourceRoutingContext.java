@@ -0,0 +1,66 @@
+package com.project.template.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import java.time.Duration;
+import java.util.function.Supplier;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Read-your-writes stickiness for replica routing: keys written recently (and
+ * the rest of the current call) are read from the primary until the replicas
+ * had time to catch up. Past maxTrackedWrites keys, evicted ones lose their
+ * stickiness early.
+ */
+@Component
+@EnableConfigurationProperties(ReplicaRoutingProperties.class)
+public class DataSourceRoutingContext {
+
+  private static final ThreadLocal<Boolean> PRIMARY_FORCED = new ThreadLocal<>();
+
+  private final Cache<String, Boolean> recentWrites;
+
+  public DataSourceRoutingContext(ReplicaRoutingProperties properties) {
+    this.recentWrites =
+      Caffeine
+        .newBuilder()
+        .expireAfterWrite(Duration.ofMillis(properties.getStickinessMsec()))
+        .maximumSize(properties.getMaxTrackedWrites())
+        .build();
+  }
+
+  public static boolean isPrimaryForced() {
+    return Boolean.TRUE.equals(PRIMARY_FORCED.get());
+  }
+
+  /**
+   * Whether a query on this thread right now goes to the primary: outside a
+   * read-only transaction or while the primary is forced.
+   */
+  public static boolean routesToPrimary() {
+    return (
+      !TransactionSynchronizationManager.isCurrentTransactionReadOnly() ||
+      isPrimaryForced()
+    );
+  }
+
+  public void markWritten(String... keys) {
+    for (String key : keys) {
+      recentWrites.put(key, Boolean.TRUE);
+    }
+  }
+
+  public <T> T read(String key, Supplier<T> reader) {
+    if (
+      isPrimaryForced() || recentWrites.getIfPresent(key) == null
+    ) return reader.get();
+    PRIMARY_FORCED.set(Boolean.TRUE);
+    try {
+      return reader.get();
+    } finally {
+      PRIMARY_FORCED.remove();
+    }
+  }
+}
@@ -0,0 +1,31 @@
+package com.project.template.config;
+
+import java.util.concurrent.ThreadPoolExecutor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+@Configuration
+public class ExecutorConfig {
+
+  public static final String AUTH_TASK_EXECUTOR = "authTaskExecutor";
+
+  /**
+   * Bounded pool for CPU bound token work (decryption, signature checks). When
+   * the queue is full the caller runs the task itself instead of queueing more.
+   */
+  @Bean(AUTH_TASK_EXECUTOR)
+  ThreadPoolTaskExecutor authTaskExecutor() {
+    int processors = Runtime.getRuntime().availableProcessors();
+    ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+    executor.setCorePoolSize(processors);
+    executor.setMaxPoolSize(processors);
+    executor.setQueueCapacity(processors * 64);
+    executor.setThreadNamePrefix("auth-");
+    executor.setRejectedExecutionHandler(
+      new ThreadPoolExecutor.CallerRunsPolicy()
+    );
+    executor.setWaitForTasksToCompleteOnShutdown(true);
+    return executor;
+  }
+}
@@ -0,0 +1,67 @@
+package com.project.template.config;
+
+import db.migration.V1__CreateUserTable;
+import db.migration.V2__AddUserTokenVersion;
+import db.migration.V3__AddUserLoginActivity;
+import db.migration.V4__AddUserSearchIndexes;
+import java.util.List;
+import java.util.Map;
+import org.flywaydb.core.api.migration.JavaMigration;
+import org.springframework.boot.autoconfigure.flyway.FlywayConfigurationCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.NativeDetector;
+
+@Configuration
+public class FlywayConfig {
+
+  /**
+   * Every Java migration, in version order. Classpath scanning finds them on
+   * the JVM, a native image can't scan classes so they are registered here.
+   */
+  static final List<Class<? extends JavaMigration>> JAVA_MIGRATIONS = List.of(
+    V1__CreateUserTable.class,
+    V2__AddUserTokenVersion.class,
+    V3__AddUserLoginActivity.class,
+    V4__AddUserSearchIndexes.class
+  );
+
+  /**
+   * V4 builds indexes CONCURRENTLY, which waits for every open transaction.
+   * Flyway's default transactional advisory lock is one and the build would
+   * wait forever, a session lock isn't.
+   */
+  @Bean
+  FlywayConfigurationCustomizer sessionLockCustomizer() {
+    return configuration ->
+      configuration.configuration(
+        Map.of("flyway.postgresql.transactional.lock", "false")
+      );
+  }
+
+  @Bean
+  FlywayConfigurationCustomizer nativeJavaMigrationsCustomizer() {
+    return configuration -> {
+      if (!NativeDetector.inNativeImage()) return;
+      configuration.javaMigrations(
+        JAVA_MIGRATIONS
+          .stream()
+          .map(FlywayConfig::instantiate)
+          .toArray(JavaMigration[]::new)
+      );
+    };
+  }
+
+  private static JavaMigration instantiate(
+    Class<? extends JavaMigration> migration
+  ) {
+    try {
+      return migration.getDeclaredConstructor().newInstance();
+    } catch (ReflectiveOperationException ex) {
+      throw new IllegalStateException(
+        "Cannot instantiate migration " + migration.getName(),
+        ex
+      );
+    }
+  }
+}
@@ -0,0 +1,49 @@
+package com.project.template.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "grpc")
+public class GrpcServerProperties {
+
+  /**
+   * Serves the internal UserLookup gRPC service next to the HTTP API.
+   */
+  private boolean enabled = false;
+
+  /**
+   * Interface the server binds to, loopback unless internal callers on other
+   * hosts need it.
+   */
+  private String address = "127.0.0.1";
+
+  /**
+   * Shared secret callers send as "authorization: Bearer ..." metadata,
+   * required when the server is enabled.
+   */
+  private String authToken = "";
+
+  /**
+   * Separate from server.port, only internal callers should reach it.
+   */
+  private Integer port = 9090;
+
+  /**
+   * Pings idle connections so load balancers keep the long-lived HTTP/2
+   * connections open.
+   */
+  private Long keepAliveTimeSec = 60L;
+
+  /**
+   * Clients may ping this often without being disconnected.
+   */
+  private Long permitKeepAliveTimeSec = 20L;
+
+  private Integer maxConcurrentCallsPerConnection = 256;
+
+  /**
+   * In-flight calls get this long to finish on shutdown.
+   */
+  private Long shutdownGraceMsec = 10000L;
+}
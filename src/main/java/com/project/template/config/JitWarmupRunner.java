@@ -0,0 +1,176 @@
+package com.project.template.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.project.template.dto.AuthenticatedToken;
+import com.project.template.dto.LoginRequest;
+import com.project.template.dto.Token;
+import com.project.template.exception.ApiError;
+import com.project.template.model.User;
+import com.project.template.repository.UserRepository;
+import com.project.template.service.TokenProvider;
+import com.project.template.utils.CookieUtil;
+import com.project.template.utils.SecurityCipher;
+import java.time.LocalDateTime;
+import java.util.List;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpCookie;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+/**
+ * Runs synthetic calls through the request hot paths before the instance takes
+ * traffic. Spring Boot only publishes ACCEPTING_TRAFFIC after the application
+ * runners return, so the readiness probe stays DOWN until this is done.
+ * Nothing here writes to the database.
+ */
+@Slf4j
+@Component
+@EnableConfigurationProperties(WarmupProperties.class)
+@ConditionalOnProperty(
+  prefix = "warmup",
+  name = "enabled",
+  havingValue = "true",
+  matchIfMissing = true
+)
+public class JitWarmupRunner implements ApplicationRunner {
+
+  static final String WARMUP_EMAIL = "warmup@warmup.invalid";
+  private static final String WARMUP_PASSWORD = "warmup-password";
+
+  private final WarmupProperties properties;
+  private final TokenProvider tokenProvider;
+  private final CookieUtil cookieUtil;
+  private final PasswordEncoder passwordEncoder;
+  private final ObjectMapper objectMapper;
+  private final UserRepository userRepository;
+  private final ApplicationEventPublisher eventPublisher;
+
+  public JitWarmupRunner(
+    WarmupProperties properties,
+    TokenProvider tokenProvider,
+    CookieUtil cookieUtil,
+    PasswordEncoder passwordEncoder,
+    ObjectMapper objectMapper,
+    UserRepository userRepository,
+    ApplicationEventPublisher eventPublisher
+  ) {
+    this.properties = properties;
+    this.tokenProvider = tokenProvider;
+    this.cookieUtil = cookieUtil;
+    this.passwordEncoder = passwordEncoder;
+    this.objectMapper = objectMapper;
+    this.userRepository = userRepository;
+    this.eventPublisher = eventPublisher;
+  }
+
+  @Override
+  public void run(ApplicationArguments args) {
+    AvailabilityChangeEvent.publish(
+      eventPublisher,
+      this,
+      ReadinessState.REFUSING_TRAFFIC
+    );
+    long start = System.currentTimeMillis();
+    long deadline = start + properties.getMaxDurationMsec();
+
+    User user = User
+      .builder()
+      .id(-1L)
+      .email(WARMUP_EMAIL)
+      .name("warmup")
+      .password(passwordEncoder.encode(WARMUP_PASSWORD))
+      .build();
+    ApiError apiError = ApiError
+      .builder()
+      .code(400)
+      .status("Bad Request")
+      .message("warmup")
+      .errors(List.of("warmup"))
+      .timestamp(LocalDateTime.now())
+      .build();
+
+    int tokens = repeat(
+      properties.getIterations(),
+      deadline,
+      () -> warmTokenPath(user, apiError)
+    );
+    int passwords = repeat(
+      properties.getPasswordIterations(),
+      deadline,
+      () -> passwordEncoder.matches(WARMUP_PASSWORD, user.getPassword())
+    );
+    int queries = repeat(
+      properties.getQueryIterations(),
+      deadline,
+      () -> userRepository.findUserByEmail(WARMUP_EMAIL)
+    );
+
+    log.info(
+      "Warmup finished in {}ms ({} token, {} password, {} query iterations)",
+      System.currentTimeMillis() - start,
+      tokens,
+      passwords,
+      queries
+    );
+  }
+
+  /**
+   * Same calls as TokenAuthenticationFilter on an authenticated request: the
+   * access cookie found in a Cookie header and decrypted in place, the token
+   * parsed once, then the sliding renewal's new token and Set-Cookie.
+   */
+  private void warmTokenPath(User user, ApiError apiError) throws Exception {
+    HttpCookie cookie = cookieUtil.createAccessTokenCookie(
+      tokenProvider.generateAccessToken(user, LocalDateTime.now()).getTokenValue(),
+      60L
+    );
+    String cookieHeader = "theme=warmup; " + cookie.getName() + "=" + cookie.getValue();
+    int valueStart = CookieUtil.findCookieValue(cookieHeader, cookie.getName());
+    int valueEnd = CookieUtil.cookieValueEnd(cookieHeader, valueStart);
+    AuthenticatedToken token = tokenProvider
+      .authenticateToken(SecurityCipher.decrypt(cookieHeader, valueStart, valueEnd, true))
+      .orElseThrow(() -> new IllegalStateException("Warmup token not accepted"));
+    Token renewed = tokenProvider.generateAccessToken(
+      token.getUserDetails().getUser(),
+      token.getAuthTime()
+    );
+    cookieUtil.createAccessTokenCookie(renewed.getTokenValue(), 60L).toString();
+    objectMapper.writeValueAsString(user);
+    objectMapper.writeValueAsString(apiError);
+    objectMapper.readValue(
+      objectMapper.writeValueAsBytes(
+        new LoginRequest(WARMUP_EMAIL, WARMUP_PASSWORD)
+      ),
+      LoginRequest.class
+    );
+  }
+
+  /**
+   * Stops at the first failure, a broken path is reported by the real requests
+   * and shouldn't keep the instance out of rotation.
+   */
+  private int repeat(int iterations, long deadline, WarmupTask task) {
+    int done = 0;
+    try {
+      while (done < iterations && System.currentTimeMillis() < deadline) {
+        task.run();
+        done++;
+      }
+    } catch (Exception ex) {
+      log.warn("Warmup step stopped after {} iterations: {}", done, ex.getMessage());
+    }
+    return done;
+  }
+
+  @FunctionalInterface
+  interface WarmupTask {
+    void run() throws Exception;
+  }
+}
@@ -0,0 +1,183 @@
+package com.project.template.config;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.SigningKeyResolverAdapter;
+import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.SignatureException;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyFactory;
+import java.security.PrivateKey;
+import java.security.interfaces.ECPublicKey;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Holds the keys used to sign and verify tokens. HS512 tokens are signed with
+ * the shared token secret, ES256 tokens with the active key of the ring and a
+ * {@code kid} header so downstream services can verify them from the JWKS.
+ * In ES256 mode HMAC tokens are rejected unless acceptLegacyHs512 is set.
+ */
+@Component
+@EnableConfigurationProperties(JwtSigningProperties.class)
+public class JwtKeyRing extends SigningKeyResolverAdapter {
+
+  private static final int EC_COORDINATE_LENGTH = 32;
+
+  private final SignatureAlgorithm signatureAlgorithm;
+  private final Key secretKey;
+  private final boolean acceptHmac;
+  private final Map<String, ECPublicKey> publicKeys = new LinkedHashMap<>();
+  private final String activeKeyId;
+  private final PrivateKey activePrivateKey;
+  private final List<Map<String, Object>> jwks;
+
+  public JwtKeyRing(
+    @Value("${authentication.auth.tokenSecret}") String tokenSecret,
+    JwtSigningProperties properties
+  ) throws GeneralSecurityException {
+    this.signatureAlgorithm = SignatureAlgorithm.forName(properties.getAlgorithm());
+    this.secretKey =
+      Keys.hmacShaKeyFor(tokenSecret.getBytes(StandardCharsets.UTF_8));
+    this.acceptHmac =
+      signatureAlgorithm.isHmac() || properties.isAcceptLegacyHs512();
+    if (signatureAlgorithm.isHmac()) {
+      this.activeKeyId = null;
+      this.activePrivateKey = null;
+    } else if (signatureAlgorithm == SignatureAlgorithm.ES256) {
+      PrivateKey privateKey = null;
+      String keyId = properties.getActiveKeyId();
+      KeyFactory keyFactory = KeyFactory.getInstance("EC");
+      for (JwtSigningProperties.SigningKey signingKey : properties.getKeys()) {
+        publicKeys.put(
+          signingKey.getId(),
+          (ECPublicKey) keyFactory.generatePublic(
+            new X509EncodedKeySpec(
+              Base64.getDecoder().decode(signingKey.getPublicKey())
+            )
+          )
+        );
+        if (
+          signingKey.getId().equals(keyId) && signingKey.getPrivateKey() != null
+        ) {
+          privateKey =
+            keyFactory.generatePrivate(
+              new PKCS8EncodedKeySpec(
+                Base64.getDecoder().decode(signingKey.getPrivateKey())
+              )
+            );
+        }
+      }
+      // a per-instance key would only verify on this replica and die on restart
+      if (privateKey == null) throw new IllegalStateException(
+        "No ES256 private key configured for the active key id " + keyId
+      );
+      this.activeKeyId = keyId;
+      this.activePrivateKey = privateKey;
+    } else {
+      throw new IllegalArgumentException(
+        "Unsupported token signing algorithm " + properties.getAlgorithm()
+      );
+    }
+    this.jwks = buildJwks();
+  }
+
+  public SignatureAlgorithm getSignatureAlgorithm() {
+    return signatureAlgorithm;
+  }
+
+  public Key getSigningKey() {
+    return signatureAlgorithm.isHmac() ? secretKey : activePrivateKey;
+  }
+
+  /**
+   * Null for HS512, tokens signed with the shared secret don't carry a kid.
+   */
+  public String getActiveKeyId() {
+    return activeKeyId;
+  }
+
+  public List<Map<String, Object>> getJwks() {
+    return jwks;
+  }
+
+  @Override
+  public Key resolveSigningKey(JwsHeader header, Claims claims) {
+    return resolveKey(header);
+  }
+
+  @Override
+  public Key resolveSigningKey(JwsHeader header, String plaintext) {
+    return resolveKey(header);
+  }
+
+  private Key resolveKey(JwsHeader<?> header) {
+    if (SignatureAlgorithm.forName(header.getAlgorithm()).isHmac()) {
+      if (!acceptHmac) throw new SignatureException(
+        "HMAC signed tokens aren't accepted with " + signatureAlgorithm
+      );
+      return secretKey;
+    }
+    ECPublicKey publicKey = publicKeys.get(header.getKeyId());
+    if (publicKey == null) throw new SignatureException(
+      "Unknown signing key " + header.getKeyId()
+    );
+    return publicKey;
+  }
+
+  private List<Map<String, Object>> buildJwks() {
+    List<Map<String, Object>> keys = new ArrayList<>();
+    Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+    publicKeys.forEach((keyId, publicKey) -> {
+      Map<String, Object> jwk = new LinkedHashMap<>();
+      jwk.put("kty", "EC");
+      jwk.put("crv", "P-256");
+      jwk.put("use", "sig");
+      jwk.put("alg", SignatureAlgorithm.ES256.getValue());
+      jwk.put("kid", keyId);
+      jwk.put(
+        "x",
+        encoder.encodeToString(toCoordinate(publicKey.getW().getAffineX()))
+      );
+      jwk.put(
+        "y",
+        encoder.encodeToString(toCoordinate(publicKey.getW().getAffineY()))
+      );
+      keys.add(Collections.unmodifiableMap(jwk));
+    });
+    return Collections.unmodifiableList(keys);
+  }
+
+  private static byte[] toCoordinate(BigInteger value) {
+    byte[] bytes = value.toByteArray();
+    if (bytes.length == EC_COORDINATE_LENGTH) return bytes;
+    if (bytes.length > EC_COORDINATE_LENGTH) return Arrays.copyOfRange(
+      bytes,
+      bytes.length - EC_COORDINATE_LENGTH,
+      bytes.length
+    );
+    byte[] padded = new byte[EC_COORDINATE_LENGTH];
+    System.arraycopy(
+      bytes,
+      0,
+      padded,
+      EC_COORDINATE_LENGTH - bytes.length,
+      bytes.length
+    );
+    return padded;
+  }
+}
@@ -0,0 +1,49 @@
+package com.project.template.config;
+
+import java.util.ArrayList;
+import java.util.List;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "authentication.signing")
+public class JwtSigningProperties {
+
+  /**
+   * HS512 (shared tokenSecret) or ES256 (asymmetric key ring published as JWKS).
+   */
+  private String algorithm = "HS512";
+
+  /**
+   * Key id used to sign new tokens, the other keys are kept for verification
+   * only so tokens signed before a rotation stay valid.
+   */
+  private String activeKeyId;
+
+  private List<SigningKey> keys = new ArrayList<>();
+
+  /**
+   * With ES256, still accept HS512 tokens signed with the shared tokenSecret.
+   * Only for the switch-over, until the HS512 tokens issued before it have
+   * expired: whoever holds the secret can forge tokens while it's on.
+   */
+  private boolean acceptLegacyHs512 = false;
+
+  private Long jwksMaxAgeSeconds = 3600L;
+
+  @Data
+  public static class SigningKey {
+
+    private String id;
+
+    /**
+     * Base64 PKCS#8 encoded EC private key, may be omitted for retired keys.
+     */
+    private String privateKey;
+
+    /**
+     * Base64 X.509 encoded EC public key.
+     */
+    private String publicKey;
+  }
+}
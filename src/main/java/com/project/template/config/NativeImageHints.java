@@ -0,0 +1,83 @@
+package com.project.template.config;
+
+import com.project.template.dto.CreateUserDTO;
+import com.project.template.dto.LoginRequest;
+import com.project.template.dto.LoginResponse;
+import com.project.template.dto.Token;
+import com.project.template.dto.TokenIntrospectionRequest;
+import com.project.template.dto.TokenIntrospectionResult;
+import com.project.template.exception.ApiError;
+import com.project.template.model.User;
+import java.util.List;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.aot.hint.TypeReference;
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+
+/**
+ * Reflection and resource hints the AOT engine can't infer on its own: the
+ * Lombok DTOs (de)serialized by Jackson, the classes jjwt loads by name, the
+ * Flyway Java migrations and the springdoc UI assets.
+ */
+public class NativeImageHints implements RuntimeHintsRegistrar {
+
+  static final Class<?>[] BINDING_TYPES = {
+    CreateUserDTO.class,
+    LoginRequest.class,
+    LoginResponse.class,
+    Token.class,
+    TokenIntrospectionRequest.class,
+    TokenIntrospectionResult.class,
+    ApiError.class,
+    User.class,
+  };
+
+  static final List<String> JJWT_TYPES = List.of(
+    "io.jsonwebtoken.impl.DefaultJwtBuilder",
+    "io.jsonwebtoken.impl.DefaultJwtParserBuilder",
+    "io.jsonwebtoken.impl.DefaultJwtParser",
+    "io.jsonwebtoken.impl.DefaultClaims",
+    "io.jsonwebtoken.impl.DefaultHeader",
+    "io.jsonwebtoken.impl.DefaultJwsHeader",
+    "io.jsonwebtoken.impl.compression.DefaultCompressionCodecResolver",
+    "io.jsonwebtoken.gson.io.GsonSerializer",
+    "io.jsonwebtoken.gson.io.GsonDeserializer"
+  );
+
+  @Override
+  public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+    new BindingReflectionHintsRegistrar()
+      .registerReflectionHints(hints.reflection(), BINDING_TYPES);
+
+    JJWT_TYPES.forEach(type ->
+      hints
+        .reflection()
+        .registerType(
+          TypeReference.of(type),
+          MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS,
+          MemberCategory.INVOKE_PUBLIC_METHODS
+        )
+    );
+    hints
+      .resources()
+      .registerPattern("META-INF/services/io.jsonwebtoken.io.Serializer")
+      .registerPattern("META-INF/services/io.jsonwebtoken.io.Deserializer")
+      .registerPattern("META-INF/services/io.jsonwebtoken.CompressionCodec");
+
+    FlywayConfig.JAVA_MIGRATIONS.forEach(migration ->
+      hints
+        .reflection()
+        .registerType(
+          migration,
+          MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS,
+          MemberCategory.INVOKE_PUBLIC_METHODS
+        )
+    );
+
+    hints
+      .resources()
+      .registerPattern("META-INF/resources/webjars/swagger-ui/*")
+      .registerPattern("META-INF/maven/org.webjars/swagger-ui/pom.properties");
+  }
+}
@@ -0,0 +1,134 @@
+package com.project.template.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.springframework.security.web.util.matcher.RequestMatcher;
+
+/**
+ * The public routes compiled into a single lookup: exact paths in a set, "/**"
+ * prefixes in a trie of path segments and "/**&#47;*.ext" patterns in a set of
+ * extensions. Shared by SecurityConfig (permitAll) and TokenAuthenticationFilter
+ * (shouldNotFilter) so static assets, docs and /error never reach the cookie
+ * cipher or the token parser.
+ */
+public class PublicRouteMatcher implements RequestMatcher {
+
+  static final List<String> PUBLIC_ROUTES = List.of(
+    "/",
+    // -- Swagger UI v2
+    "/v2/api-docs",
+    "/swagger-resources",
+    "/swagger-resources/**",
+    "/configuration/ui",
+    "/configuration/security",
+    "/swagger-ui.html",
+    "/webjars/**",
+    // -- Swagger UI v3 (OpenAPI)
+    "/v3/api-docs/**",
+    "/swagger-ui/**",
+    "/openapi/**",
+    // other public endpoints of your API may be appended to this list
+    "/error",
+    "/api/v1/users/email-available",
+    "/.well-known/jwks.json",
+    "/actuator/health/liveness",
+    "/actuator/health/readiness",
+    "/favicon.ico",
+    "/**/*.png",
+    "/**/*.gif",
+    "/**/*.svg",
+    "/**/*.jpg",
+    "/**/*.html",
+    "/**/*.css",
+    "/**/*.js"
+  );
+
+  private static final String ANY_PATH = "/**";
+  private static final String ANY_FILE_WITH_EXTENSION = "/**/*.";
+
+  private final Set<String> exactPaths = new HashSet<>();
+  private final Set<String> extensions = new HashSet<>();
+  private final PrefixNode prefixes = new PrefixNode();
+
+  public PublicRouteMatcher() {
+    this(PUBLIC_ROUTES);
+  }
+
+  public PublicRouteMatcher(List<String> patterns) {
+    patterns.forEach(this::compile);
+  }
+
+  @Override
+  public boolean matches(HttpServletRequest request) {
+    String path = request.getRequestURI();
+    String contextPath = request.getContextPath();
+    if (contextPath != null && !contextPath.isEmpty()) {
+      path = path.substring(contextPath.length());
+    }
+    return matches(path);
+  }
+
+  public boolean matches(String path) {
+    if (path == null || path.isEmpty()) return false;
+    if (exactPaths.contains(path)) return true;
+    return hasPublicExtension(path) || hasPublicPrefix(path);
+  }
+
+  private boolean hasPublicExtension(String path) {
+    int lastSlash = path.lastIndexOf('/');
+    int lastDot = path.lastIndexOf('.');
+    if (lastDot <= lastSlash || lastDot == path.length() - 1) return false;
+    return extensions.contains(path.substring(lastDot + 1));
+  }
+
+  private boolean hasPublicPrefix(String path) {
+    PrefixNode node = prefixes;
+    int start = 1;
+    while (start <= path.length()) {
+      int end = path.indexOf('/', start);
+      if (end < 0) end = path.length();
+      node = node.children.get(path.substring(start, end));
+      if (node == null) return false;
+      if (node.anyPathBelow) return true;
+      start = end + 1;
+    }
+    return false;
+  }
+
+  private void compile(String pattern) {
+    if (pattern.startsWith(ANY_FILE_WITH_EXTENSION)) {
+      String extension = pattern.substring(ANY_FILE_WITH_EXTENSION.length());
+      requireLiteral(pattern, extension);
+      extensions.add(extension);
+    } else if (pattern.endsWith(ANY_PATH)) {
+      String prefix = pattern.substring(0, pattern.length() - ANY_PATH.length());
+      requireLiteral(pattern, prefix);
+      PrefixNode node = prefixes;
+      for (String segment : prefix.substring(1).split("/")) {
+        node = node.children.computeIfAbsent(segment, key -> new PrefixNode());
+      }
+      node.anyPathBelow = true;
+    } else {
+      requireLiteral(pattern, pattern);
+      exactPaths.add(pattern);
+    }
+  }
+
+  private static void requireLiteral(String pattern, String part) {
+    if (part.isEmpty() || part.contains("*") || part.contains("?")) {
+      throw new IllegalArgumentException(
+        "Unsupported public route pattern: " + pattern
+      );
+    }
+  }
+
+  private static class PrefixNode {
+
+    private final Map<String, PrefixNode> children = new HashMap<>();
+    private boolean anyPathBelow;
+  }
+}
@@ -0,0 +1,154 @@
+package com.project.template.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.sql.DataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+
+/**
+ * Sends read-only transactions to a healthy replica (round robin) and
+ * everything else to the primary. Replicas failing to hand out a connection are
+ * taken out of rotation until the next successful health check. Must be
+ * wrapped in a LazyConnectionDataSourceProxy so the read-only flag of the
+ * transaction is known when the connection is fetched.
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+  public static final String PRIMARY = "primary";
+
+  private static final int HEALTH_CHECK_TIMEOUT_SECONDS = 1;
+
+  private final DataSource primary;
+  private final Map<String, DataSource> replicas;
+  private final List<String> replicaNames;
+  private final Set<String> unhealthyReplicas = ConcurrentHashMap.newKeySet();
+  private final AtomicInteger nextReplica = new AtomicInteger();
+  private final Map<String, Counter> routedConnections = new HashMap<>();
+  private final Counter replicaFallbacks;
+
+  public ReplicaRoutingDataSource(
+    DataSource primary,
+    Map<String, DataSource> replicas,
+    MeterRegistry meterRegistry
+  ) {
+    this.primary = primary;
+    this.replicas = new LinkedHashMap<>(replicas);
+    this.replicaNames = new ArrayList<>(replicas.keySet());
+
+    Map<Object, Object> targetDataSources = new HashMap<>(replicas);
+    targetDataSources.put(PRIMARY, primary);
+    setTargetDataSources(targetDataSources);
+    setDefaultTargetDataSource(primary);
+
+    targetDataSources
+      .keySet()
+      .forEach(name ->
+        routedConnections.put(
+          (String) name,
+          Counter
+            .builder("datasource.routing.connections")
+            .description("Connections handed out per routing target")
+            .tag("pool", (String) name)
+            .register(meterRegistry)
+        )
+      );
+    this.replicaFallbacks =
+      Counter
+        .builder("datasource.routing.fallbacks")
+        .description("Read-only connections served by the primary because no replica was available")
+        .register(meterRegistry);
+  }
+
+  @Override
+  protected Object determineCurrentLookupKey() {
+    if (DataSourceRoutingContext.routesToPrimary()) return PRIMARY;
+
+    int replicaCount = replicaNames.size();
+    int start = Math.floorMod(
+      nextReplica.getAndIncrement(),
+      Math.max(replicaCount, 1)
+    );
+    for (int i = 0; i < replicaCount; i++) {
+      String replicaName = replicaNames.get((start + i) % replicaCount);
+      if (!unhealthyReplicas.contains(replicaName)) return replicaName;
+    }
+    replicaFallbacks.increment();
+    return PRIMARY;
+  }
+
+  @Override
+  public Connection getConnection() throws SQLException {
+    String target = (String) determineCurrentLookupKey();
+    if (PRIMARY.equals(target)) return primaryConnection();
+    try {
+      Connection connection = replicas.get(target).getConnection();
+      routedConnections.get(target).increment();
+      return connection;
+    } catch (SQLException ex) {
+      log.warn(
+        "Replica {} unavailable, falling back to primary: {}",
+        target,
+        ex.getMessage()
+      );
+      unhealthyReplicas.add(target);
+      replicaFallbacks.increment();
+      return primaryConnection();
+    }
+  }
+
+  @Override
+  public Connection getConnection(String username, String password)
+    throws SQLException {
+    return getConnection();
+  }
+
+  /**
+   * Probes every replica and puts the ones answering again back in rotation.
+   */
+  @Scheduled(fixedDelayString = "${datasource.routing.healthCheckIntervalMsec:5000}")
+  public void checkReplicas() {
+    replicas.forEach((name, dataSource) -> {
+      boolean healthy;
+      try (Connection connection = dataSource.getConnection()) {
+        healthy = connection.isValid(HEALTH_CHECK_TIMEOUT_SECONDS);
+      } catch (SQLException ex) {
+        healthy = false;
+      }
+      if (healthy && unhealthyReplicas.remove(name)) {
+        log.info("Replica {} is back in rotation", name);
+      } else if (!healthy && unhealthyReplicas.add(name)) {
+        log.warn("Replica {} failed its health check", name);
+      }
+    });
+  }
+
+  public boolean isHealthy(String replicaName) {
+    return !unhealthyReplicas.contains(replicaName);
+  }
+
+  public void close() throws Exception {
+    for (DataSource replica : replicas.values()) {
+      if (replica instanceof AutoCloseable closeable) closeable.close();
+    }
+    if (primary instanceof AutoCloseable closeable) closeable.close();
+  }
+
+  private Connection primaryConnection() throws SQLException {
+    Connection connection = primary.getConnection();
+    routedConnections.get(PRIMARY).increment();
+    return connection;
+  }
+}
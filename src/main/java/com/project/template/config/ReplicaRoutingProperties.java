@@ -0,0 +1,40 @@
+package com.project.template.config;
+
+import java.util.ArrayList;
+import java.util.List;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "datasource.routing")
+public class ReplicaRoutingProperties {
+
+  /**
+   * Routes read-only transactions to the replicas below, writes keep going to
+   * spring.datasource.
+   */
+  private boolean enabled = false;
+
+  /**
+   * How long reads of a freshly written user are pinned to the primary.
+   */
+  private Long stickinessMsec = 5000L;
+
+  /**
+   * Upper bound on the keys pinned at once, beyond it some are evicted early.
+   */
+  private Long maxTrackedWrites = 10000L;
+
+  private Long healthCheckIntervalMsec = 5000L;
+
+  private List<Replica> replicas = new ArrayList<>();
+
+  @Data
+  public static class Replica {
+
+    private String url;
+    private String username;
+    private String password;
+    private Integer maximumPoolSize;
+  }
+}
@@ -1,6 +1,9 @@
 package com.project.template.config;
 
+import com.project.template.profiling.JfrEndpoint;
+import com.project.template.profiling.ProfilingAccess;
 import com.project.template.service.impl.CustomUserDetailsServiceImpl;
+import org.springframework.boot.actuate.autoconfigure.security.servlet.EndpointRequest;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
@@ -26,6 +29,11 @@ public class SecurityConfig {
     return new BCryptPasswordEncoder();
   }
 
+  @Bean
+  PublicRouteMatcher publicRouteMatcher() {
+    return new PublicRouteMatcher();
+  }
+
   @Bean
   TokenAuthenticationFilter tokenAuthenticationFilter() {
     return new TokenAuthenticationFilter();
@@ -53,7 +61,10 @@ public class SecurityConfig {
   }
 
   @Bean
-  SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
+  SecurityFilterChain filterChain(
+    HttpSecurity http,
+    ProfilingAccess profilingAccess
+  ) throws Exception {
     return http
       .cors()
       .and()
@@ -70,31 +81,7 @@ public class SecurityConfig {
       .authenticationEntryPoint(new RestAuthenticationEntryPoint())
       .and()
       .authorizeHttpRequests()
-      .requestMatchers(
-        "/",
-        // -- Swagger UI v2
-        "/v2/api-docs",
-        "/swagger-resources",
-        "/swagger-resources/**",
-        "/configuration/ui",
-        "/configuration/security",
-        "/swagger-ui.html",
-        "/webjars/**",
-        // -- Swagger UI v3 (OpenAPI)
-        "/v3/api-docs/**",
-        "/swagger-ui/**",
-        // other public endpoints of your API may be appended to this array
-
-        "/error",
-        "/favicon.ico",
-        "/**/*.png",
-        "/**/*.gif",
-        "/**/*.svg",
-        "/**/*.jpg",
-        "/**/*.html",
-        "/**/*.css",
-        "/**/*.js"
-      )
+      .requestMatchers(publicRouteMatcher())
       .permitAll()
       .and()
       .authorizeHttpRequests()
@@ -105,6 +92,8 @@ public class SecurityConfig {
         "/api/v1/users"
       )
       .permitAll()
+      .requestMatchers(EndpointRequest.to(JfrEndpoint.class))
+      .access(profilingAccess)
       .anyRequest()
       .authenticated()
       .and()
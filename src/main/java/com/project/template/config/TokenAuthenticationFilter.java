@@ -1,14 +1,29 @@
 package com.project.template.config;
 
+import com.project.template.dto.AuthenticatedToken;
+import com.project.template.dto.CustomUserDetails;
+import com.project.template.dto.Token;
+import com.project.template.exception.DomainException;
+import com.project.template.profiling.AuthFilterEvent;
 import com.project.template.service.TokenProvider;
 import com.project.template.service.impl.CustomUserDetailsServiceImpl;
+import com.project.template.timing.ServerTiming;
+import com.project.template.timing.ServerTiming.Stage;
+import com.project.template.utils.CookieUtil;
 import com.project.template.utils.SecurityCipher;
+import com.project.template.utils.TokenVersionRegistry;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.*;
 import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Enumeration;
+import java.util.Optional;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -16,6 +31,7 @@ import org.springframework.security.web.authentication.WebAuthenticationDetailsS
 import org.springframework.util.StringUtils;
 import org.springframework.web.filter.OncePerRequestFilter;
 
+@Slf4j
 public class TokenAuthenticationFilter extends OncePerRequestFilter {
 
   @Value("${authentication.auth.accessTokenCookieName}")
@@ -24,25 +40,57 @@ public class TokenAuthenticationFilter extends OncePerRequestFilter {
   @Value("${authentication.auth.refreshTokenCookieName}")
   private String refreshTokenCookieName;
 
+  @Value("${authentication.auth.stateless}")
+  private boolean statelessAuth;
+
+  @Value("${authentication.auth.slidingRenewal.enabled:false}")
+  private boolean slidingRenewal;
+
+  @Value("${authentication.auth.slidingRenewal.windowMsec:300000}")
+  private long renewalWindowMsec;
+
+  @Value("${authentication.auth.slidingRenewal.jitterMsec:120000}")
+  private long renewalJitterMsec;
+
+  @Value("${authentication.auth.tokenExpirationMsec}")
+  private long tokenExpirationMsec;
+
+  @Value("${authentication.auth.refreshTokenExpirationMsec}")
+  private long refreshTokenExpirationMsec;
+
   @Autowired
   private TokenProvider tokenProvider;
 
+  @Autowired
+  private TokenVersionRegistry tokenVersionRegistry;
+
   @Autowired
   private CustomUserDetailsServiceImpl customUserDetailsService;
 
+  @Autowired
+  private PublicRouteMatcher publicRouteMatcher;
+
+  @Autowired
+  private CookieUtil cookieUtil;
+
+  @Override
+  protected boolean shouldNotFilter(HttpServletRequest request) {
+    return publicRouteMatcher.matches(request);
+  }
+
   @Override
   protected void doFilterInternal(
     HttpServletRequest httpServletRequest,
     HttpServletResponse httpServletResponse,
     FilterChain filterChain
   ) throws ServletException, IOException {
+    AuthFilterEvent event = new AuthFilterEvent();
+    event.begin();
+    String outcome = AuthFilterEvent.ANONYMOUS;
     try {
       String jwt = getJwtToken(httpServletRequest, true);
-      if (StringUtils.hasText(jwt) && tokenProvider.validateToken(jwt)) {
-        String username = tokenProvider.getUsernameFromToken(jwt);
-        UserDetails userDetails = customUserDetailsService.loadUserByUsername(
-          username
-        );
+      UserDetails userDetails = loadUserDetails(jwt, httpServletResponse);
+      if (userDetails != null) {
         UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
           userDetails,
           null,
@@ -52,14 +100,112 @@ public class TokenAuthenticationFilter extends OncePerRequestFilter {
           new WebAuthenticationDetailsSource().buildDetails(httpServletRequest)
         );
         SecurityContextHolder.getContext().setAuthentication(authentication);
+        outcome = AuthFilterEvent.AUTHENTICATED;
       }
+    } catch (DomainException ex) {
+      // tampered or stale cookies are expected, the request just stays anonymous
+      log.debug("Ignoring access token: {}", ex.getMessage());
+      outcome = AuthFilterEvent.REJECTED;
     } catch (Exception ex) {
-      ex.printStackTrace();
+      log.error("Could not set the user authentication", ex);
+      outcome = AuthFilterEvent.ERROR;
     }
+    event.finish(outcome, httpServletRequest.getRequestURI());
 
     filterChain.doFilter(httpServletRequest, httpServletResponse);
   }
 
+  private UserDetails loadUserDetails(String jwt, HttpServletResponse response) {
+    if (!StringUtils.hasText(jwt)) return null;
+    long jwtStart = ServerTiming.start();
+    Optional<AuthenticatedToken> token = tokenProvider.authenticateToken(jwt);
+    ServerTiming.stop(Stage.JWT, jwtStart);
+    if (token.isEmpty()) return null;
+
+    UserDetails userDetails;
+    CustomUserDetails claimsUserDetails = token.get().getUserDetails();
+    if (statelessAuth && claimsUserDetails != null) {
+      if (!tokenVersionRegistry.isCurrent(claimsUserDetails)) return null;
+      userDetails = claimsUserDetails;
+    } else {
+      long principalStart = ServerTiming.start();
+      userDetails = customUserDetailsService.loadUserByUsername(token.get().getSubject());
+      ServerTiming.stop(Stage.PRINCIPAL, principalStart);
+      if (!isCurrentVersion(claimsUserDetails, userDetails)) return null;
+    }
+    if (slidingRenewal) renewIfExpiring(jwt, token.get(), userDetails, response);
+    return userDetails;
+  }
+
+  /**
+   * Tokens without user claims count as version 0, so they stop working once
+   * the user invalidates their tokens for the first time.
+   */
+  private static boolean isCurrentVersion(
+    CustomUserDetails claimsUserDetails,
+    UserDetails userDetails
+  ) {
+    if (!(userDetails instanceof CustomUserDetails loaded)) return true;
+    int tokenVersion = claimsUserDetails == null
+      ? 0
+      : claimsUserDetails.getUser().getTokenVersion();
+    return tokenVersion == loaded.getUser().getTokenVersion();
+  }
+
+  /**
+   * Sliding renewal: a token accepted within the renewal window before its
+   * expiry gets a fresh cookie on this response, so active clients never have
+   * to call refresh. Each token starts its window at a point of its own within
+   * jitterMsec, derived from the token so it's stable across its requests,
+   * which spreads the renewals of tokens issued together.
+   * Renewed tokens keep the session's auth_time and aren't issued past
+   * refreshTokenExpirationMsec after it, so a session (or a stolen cookie)
+   * lives no longer than a refresh token would; then the client logs in again.
+   */
+  private void renewIfExpiring(
+    String jwt,
+    AuthenticatedToken token,
+    UserDetails userDetails,
+    HttpServletResponse response
+  ) {
+    LocalDateTime renewFrom = token
+      .getExpiryDate()
+      .minus(Duration.ofMillis(renewalWindowMsec - renewalJitter(jwt)));
+    if (LocalDateTime.now().isBefore(renewFrom)) return;
+    LocalDateTime authTime = token.getAuthTime();
+    if (authTime == null) return;
+    LocalDateTime sessionEnd = authTime.plus(
+      Duration.ofMillis(refreshTokenExpirationMsec)
+    );
+    if (
+      LocalDateTime.now().plus(Duration.ofMillis(tokenExpirationMsec)).isAfter(sessionEnd)
+    ) return;
+
+    try {
+      Token renewed = userDetails instanceof CustomUserDetails customUserDetails
+        ? tokenProvider.generateAccessToken(customUserDetails.getUser(), authTime)
+        : tokenProvider.generateAccessToken(token.getSubject(), authTime);
+      // Token.duration is the expiry instant, the cookie wants seconds left
+      long maxAgeSec = Duration
+        .between(LocalDateTime.now(), renewed.getExpiryDate())
+        .getSeconds();
+      response.addHeader(
+        HttpHeaders.SET_COOKIE,
+        cookieUtil
+          .createAccessTokenCookie(renewed.getTokenValue(), maxAgeSec)
+          .toString()
+      );
+    } catch (RuntimeException ex) {
+      // the current token is still valid, the client can renew next time
+      log.warn("Could not renew the access token: {}", ex.getMessage());
+    }
+  }
+
+  private long renewalJitter(String jwt) {
+    long jitter = Math.min(renewalJitterMsec, renewalWindowMsec);
+    return (long) (jitter * ((jwt.hashCode() & Integer.MAX_VALUE) / (double) Integer.MAX_VALUE));
+  }
+
   private String getJwtFromRequest(HttpServletRequest request) {
     String bearerToken = request.getHeader("Authorization");
     if (StringUtils.hasText(bearerToken) && bearerToken.startsWith("Bearer ")) {
@@ -71,23 +217,34 @@ public class TokenAuthenticationFilter extends OncePerRequestFilter {
     return null;
   }
 
+  /**
+   * Reads the access cookie straight from the Cookie headers (HTTP/2 clients
+   * may send one per cookie), decrypting the value in place: no Cookie[] and
+   * no copy of the encrypted value.
+   */
   private String getJwtFromCookie(HttpServletRequest request) {
-    Cookie[] cookies = request.getCookies();
-    if (cookies == null) return null;
-    for (Cookie cookie : cookies) {
-      if (accessTokenCookieName.equals(cookie.getName())) {
-        String accessToken = cookie.getValue();
-        if (accessToken == null) return null;
-
-        return SecurityCipher.decrypt(accessToken, true);
-      }
+    Enumeration<String> cookieHeaders = request.getHeaders(HttpHeaders.COOKIE);
+    if (cookieHeaders == null) return null;
+    while (cookieHeaders.hasMoreElements()) {
+      String cookieHeader = cookieHeaders.nextElement();
+      int valueStart = CookieUtil.findCookieValue(cookieHeader, accessTokenCookieName);
+      if (valueStart < 0) continue;
+      int valueEnd = CookieUtil.cookieValueEnd(cookieHeader, valueStart);
+      if (valueEnd == valueStart) return null;
+
+      return SecurityCipher.decrypt(cookieHeader, valueStart, valueEnd, true);
     }
     return null;
   }
 
   private String getJwtToken(HttpServletRequest request, boolean fromCookie) {
-    if (fromCookie) return getJwtFromCookie(request);
+    long cookieStart = ServerTiming.start();
+    try {
+      if (fromCookie) return getJwtFromCookie(request);
 
-    return getJwtFromRequest(request);
+      return getJwtFromRequest(request);
+    } finally {
+      ServerTiming.stop(Stage.COOKIE, cookieStart);
+    }
   }
 }
@@ -0,0 +1,36 @@
+package com.project.template.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "warmup")
+public class WarmupProperties {
+
+  /**
+   * Runs synthetic calls through the hot paths before the readiness probe
+   * reports UP.
+   */
+  private boolean enabled = true;
+
+  /**
+   * Iterations of the cheap paths (token signing and parsing, cookie cipher,
+   * JSON).
+   */
+  private Integer iterations = 10000;
+
+  /**
+   * bcrypt is slow on purpose, a handful of rounds is enough to compile it.
+   */
+  private Integer passwordIterations = 5;
+
+  /**
+   * Lookups of an email that can't exist, to prepare the query plans.
+   */
+  private Integer queryIterations = 200;
+
+  /**
+   * Upper bound for the whole phase, whatever is left is skipped.
+   */
+  private Long maxDurationMsec = 15000L;
+}
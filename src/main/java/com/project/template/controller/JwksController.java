@@ -0,0 +1,40 @@
+package com.project.template.controller;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.project.template.config.JwtKeyRing;
+import com.project.template.config.JwtSigningProperties;
+
+@RestController
+public class JwksController {
+
+  private final JwtKeyRing jwtKeyRing;
+  private final CacheControl cacheControl;
+
+  public JwksController(
+    JwtKeyRing jwtKeyRing,
+    JwtSigningProperties jwtSigningProperties
+  ) {
+    this.jwtKeyRing = jwtKeyRing;
+    this.cacheControl =
+      CacheControl
+        .maxAge(jwtSigningProperties.getJwksMaxAgeSeconds(), TimeUnit.SECONDS)
+        .cachePublic();
+  }
+
+  @GetMapping(value = "/.well-known/jwks.json", produces = MediaType.APPLICATION_JSON_VALUE)
+  public ResponseEntity<Map<String, List<Map<String, Object>>>> jwks() {
+    return ResponseEntity
+      .ok()
+      .cacheControl(cacheControl)
+      .body(Map.of("keys", jwtKeyRing.getJwks()));
+  }
+}
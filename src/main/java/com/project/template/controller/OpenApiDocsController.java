@@ -0,0 +1,83 @@
+package com.project.template.controller;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnResource;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.DigestUtils;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Serves the OpenAPI spec generated at build time (mvn -Popenapi package), the
+ * body, its gzip variant and the ETag are computed once at startup.
+ */
+@RestController
+@ConditionalOnResource(resources = OpenApiDocsController.API_DOCS_LOCATION)
+public class OpenApiDocsController {
+
+  static final String API_DOCS_LOCATION = "classpath:openapi/api-docs.json";
+
+  private static final CacheControl CACHE_CONTROL = CacheControl
+    .maxAge(1, TimeUnit.HOURS)
+    .cachePublic();
+
+  private final byte[] apiDocs;
+  private final byte[] gzippedApiDocs;
+  private final String eTag;
+
+  public OpenApiDocsController() throws IOException {
+    this(
+      read("openapi/api-docs.json"),
+      new ClassPathResource("openapi/api-docs.json.gz").exists()
+        ? read("openapi/api-docs.json.gz")
+        : null
+    );
+  }
+
+  OpenApiDocsController(byte[] apiDocs, byte[] gzippedApiDocs) {
+    this.apiDocs = apiDocs;
+    this.gzippedApiDocs = gzippedApiDocs;
+    this.eTag = "\"" + DigestUtils.md5DigestAsHex(apiDocs) + "\"";
+  }
+
+  @GetMapping(value = "/openapi/api-docs.json", produces = MediaType.APPLICATION_JSON_VALUE)
+  public ResponseEntity<byte[]> apiDocs(
+    ServletWebRequest webRequest,
+    @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding
+  ) {
+    // weak and listed validators match too, sets the 304 status and ETag
+    if (webRequest.checkNotModified(eTag)) {
+      HttpServletResponse response = webRequest.getResponse();
+      if (response != null) {
+        response.setHeader(HttpHeaders.CACHE_CONTROL, CACHE_CONTROL.getHeaderValue());
+      }
+      return null;
+    }
+    ResponseEntity.BodyBuilder response = ResponseEntity
+      .ok()
+      .eTag(eTag)
+      .cacheControl(CACHE_CONTROL)
+      .varyBy(HttpHeaders.ACCEPT_ENCODING);
+    if (gzippedApiDocs != null && acceptEncoding != null && acceptEncoding.contains("gzip")) {
+      return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(gzippedApiDocs);
+    }
+    return response.body(apiDocs);
+  }
+
+  private static byte[] read(String location) throws IOException {
+    try (InputStream inputStream = new ClassPathResource(location).getInputStream()) {
+      return inputStream.readAllBytes();
+    }
+  }
+}
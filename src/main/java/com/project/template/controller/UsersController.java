@@ -1,5 +1,7 @@
 package com.project.template.controller;
 
+import java.util.List;
+
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
@@ -12,14 +14,31 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.project.template.config.BinaryFormatsConfig;
 import com.project.template.dto.CreateUserDTO;
+import com.project.template.dto.EmailAvailability;
 import com.project.template.dto.LoginRequest;
 import com.project.template.dto.LoginResponse;
+import com.project.template.dto.TokenIntrospectionRequest;
+import com.project.template.dto.TokenIntrospectionResult;
+import com.project.template.dto.UserSearchPage;
 import com.project.template.model.User;
 import com.project.template.service.UserService;
 
+/**
+ * Every endpoint answers in JSON, CBOR or Smile. Request bodies are accepted
+ * in the same formats; consumes stays on the methods that read one, at class
+ * level it would also turn away body-less requests.
+ */
 @RestController
-@RequestMapping("/api/v1/users")
+@RequestMapping(
+  value = "/api/v1/users",
+  produces = {
+    MediaType.APPLICATION_JSON_VALUE,
+    MediaType.APPLICATION_CBOR_VALUE,
+    BinaryFormatsConfig.APPLICATION_SMILE_VALUE,
+  }
+)
 public class UsersController {
 
   private final UserService usersService;
@@ -28,15 +47,24 @@ public class UsersController {
     this.usersService = usersService;
   }
 
-  @PostMapping
+  @PostMapping(
+    consumes = {
+      MediaType.APPLICATION_JSON_VALUE,
+      MediaType.APPLICATION_CBOR_VALUE,
+      BinaryFormatsConfig.APPLICATION_SMILE_VALUE,
+    }
+  )
   public User create(@RequestBody @Validated CreateUserDTO createUserDTO) {
     return this.usersService.create(createUserDTO);
   }
 
   @PostMapping(
     value = "/login",
-    consumes = MediaType.APPLICATION_JSON_VALUE,
-    produces = MediaType.APPLICATION_JSON_VALUE
+    consumes = {
+      MediaType.APPLICATION_JSON_VALUE,
+      MediaType.APPLICATION_CBOR_VALUE,
+      BinaryFormatsConfig.APPLICATION_SMILE_VALUE,
+    }
   )
   public ResponseEntity<LoginResponse> login(
     @CookieValue(name = "accessToken", required = false) String accessToken,
@@ -46,7 +74,7 @@ public class UsersController {
     return usersService.login(loginRequest, accessToken, refreshToken);
   }
 
-  @PostMapping(value = "/refresh", produces = MediaType.APPLICATION_JSON_VALUE)
+  @PostMapping("/refresh")
   public ResponseEntity<LoginResponse> refreshToken(
     @CookieValue(name = "accessToken", required = false) String accessToken,
     @CookieValue(name = "refreshToken", required = false) String refreshToken
@@ -59,6 +87,30 @@ public class UsersController {
     return this.usersService.me();
   }
 
+  @PostMapping("/me/invalidate-tokens")
+  public ResponseEntity<LoginResponse> invalidateTokens() {
+    return this.usersService.invalidateTokens();
+  }
+
+  @GetMapping("/email-available")
+  public EmailAvailability isEmailAvailable(@RequestParam String email) {
+    return new EmailAvailability(this.usersService.isEmailAvailable(email));
+  }
+
+  /**
+   * Case-insensitive search on name and email, match is "prefix" or
+   * "contains". Pass the returned nextCursor as "after" for the next page.
+   */
+  @GetMapping("/search")
+  public UserSearchPage search(
+    @RequestParam String q,
+    @RequestParam(defaultValue = "prefix") String match,
+    @RequestParam(required = false) String after,
+    @RequestParam(defaultValue = "20") int limit
+  ) {
+    return this.usersService.search(q, match, after, limit);
+  }
+
   @GetMapping("/{id}")
   public User findById(@PathVariable Long id) {
     return usersService.findById(id);
@@ -68,4 +120,18 @@ public class UsersController {
   public User validateToken(@RequestParam String token) {
     return this.usersService.getTokenUser(token);
   }
+
+  @PostMapping(
+    value = "/introspect",
+    consumes = {
+      MediaType.APPLICATION_JSON_VALUE,
+      MediaType.APPLICATION_CBOR_VALUE,
+      BinaryFormatsConfig.APPLICATION_SMILE_VALUE,
+    }
+  )
+  public List<TokenIntrospectionResult> introspect(
+    @RequestBody @Validated TokenIntrospectionRequest introspectionRequest
+  ) {
+    return this.usersService.introspect(introspectionRequest.getTokens());
+  }
 }
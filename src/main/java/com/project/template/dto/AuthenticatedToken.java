@@ -0,0 +1,20 @@
+package com.project.template.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * A verified access token: its subject, expiry, the time the session was
+ * authenticated and, when it carries user claims, the principal built from
+ * them.
+ */
+@Data
+@AllArgsConstructor
+public class AuthenticatedToken {
+    private String subject;
+    private CustomUserDetails userDetails;
+    private LocalDateTime expiryDate;
+    private LocalDateTime authTime;
+}
@@ -16,16 +16,26 @@ public class CustomUserDetails implements UserDetails {
     /**
      *
      */
-    private static final String DEFAULT_ROLE = "DEFAULT_ROLE";
+    public static final String DEFAULT_ROLE = "DEFAULT_ROLE";
     private final User user;
+    private final Collection<? extends GrantedAuthority> authorities;
 
     public CustomUserDetails(User user) {
+        this(user, Collections.singletonList(new SimpleGrantedAuthority(DEFAULT_ROLE)));
+    }
+
+    /**
+     * Builds a principal straight from verified token claims, {@code user} only
+     * carries the public fields (no password hash).
+     */
+    public CustomUserDetails(User user, Collection<? extends GrantedAuthority> authorities) {
         this.user = user;
+        this.authorities = authorities;
     }
 
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
-        return Collections.singletonList(new SimpleGrantedAuthority(DEFAULT_ROLE));
+        return authorities;
     }
 
     @Override
@@ -57,4 +67,4 @@ public class CustomUserDetails implements UserDetails {
     public boolean isEnabled() {
         return true;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,10 @@
+package com.project.template.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class EmailAvailability {
+    private boolean available;
+}
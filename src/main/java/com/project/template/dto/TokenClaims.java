@@ -0,0 +1,14 @@
+package com.project.template.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+public class TokenClaims {
+    private String subject;
+    private Integer tokenVersion;
+    private LocalDateTime expiryDate;
+}
@@ -0,0 +1,20 @@
+package com.project.template.dto;
+
+import java.util.List;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TokenIntrospectionRequest {
+    public static final int MAX_TOKENS = 100;
+
+    @NotEmpty(message = "Tokens cannot be empty")
+    @Size(max = MAX_TOKENS, message = "should have at most " + MAX_TOKENS + " tokens.")
+    private List<String> tokens;
+}
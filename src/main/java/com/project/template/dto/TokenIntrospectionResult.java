@@ -0,0 +1,26 @@
+package com.project.template.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.project.template.model.User;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class TokenIntrospectionResult {
+    private boolean active;
+    private User user;
+    private String error;
+
+    public static TokenIntrospectionResult active(User user) {
+        return new TokenIntrospectionResult(true, user, null);
+    }
+
+    public static TokenIntrospectionResult inactive(String error) {
+        return new TokenIntrospectionResult(false, null, error);
+    }
+}
@@ -0,0 +1,19 @@
+package com.project.template.dto;
+
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class UserSearchPage {
+    private List<UserSearchResult> users;
+    /**
+     * Passed back as "after" for the next page, absent on the last one.
+     */
+    private String nextCursor;
+}
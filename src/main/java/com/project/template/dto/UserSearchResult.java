@@ -0,0 +1,21 @@
+package com.project.template.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * The columns search returns, the entity (and its password hash) is never
+ * loaded. The search key is the lowercased name or email the user matched on,
+ * results are ordered and paged by it.
+ */
+@Data
+@AllArgsConstructor
+public class UserSearchResult {
+    private Long id;
+    private String email;
+    private String name;
+    @JsonIgnore
+    private String searchKey;
+}
@@ -4,6 +4,7 @@ import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.HttpStatusCode;
@@ -15,6 +16,7 @@ import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.servlet.mvc.method.annotation.ResponseEntityExceptionHandler;
 
+@Slf4j
 @ControllerAdvice
 public class ApiExceptionHandler extends ResponseEntityExceptionHandler {
 
@@ -62,6 +64,31 @@ public class ApiExceptionHandler extends ResponseEntityExceptionHandler {
     );
   }
 
+  @ExceptionHandler(SecurityCipherDecodeException.class)
+  public ResponseEntity<Object> handleSecurityCipherDecodeException(
+    SecurityCipherDecodeException exception
+  ) {
+    return buildResponseEntity(
+      HttpStatus.UNAUTHORIZED,
+      exception.getMessage(),
+      Collections.singletonList(exception.getMessage())
+    );
+  }
+
+  /**
+   * Anything that isn't a {@link DomainException} or a Spring MVC error is a
+   * bug, so this is the only place that logs the full stack trace.
+   */
+  @ExceptionHandler(Exception.class)
+  public ResponseEntity<Object> handleUnexpectedException(Exception exception) {
+    log.error("Unexpected error", exception);
+    return buildResponseEntity(
+      HttpStatus.INTERNAL_SERVER_ERROR,
+      "Unexpected error",
+      Collections.singletonList(HttpStatus.INTERNAL_SERVER_ERROR.getReasonPhrase())
+    );
+  }
+
   @Override
   public ResponseEntity<Object> handleMethodArgumentNotValid(
     MethodArgumentNotValidException ex,
@@ -1,7 +1,7 @@
 package com.project.template.exception;
 
 
-public class BadRequestException extends RuntimeException {
+public class BadRequestException extends DomainException {
     private static final long serialVersionUID = 1L;
 
     public BadRequestException(String message) {
@@ -0,0 +1,14 @@
+package com.project.template.exception;
+
+/**
+ * Base for the expected errors that drive normal control flow (unknown user,
+ * wrong password, duplicate email...). They are stackless: filling in the stack
+ * trace is most of the cost of throwing and the handlers only need the message.
+ */
+public abstract class DomainException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    protected DomainException(String message) {
+        super(message, null, false, false);
+    }
+}
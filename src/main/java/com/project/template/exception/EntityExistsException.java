@@ -1,7 +1,7 @@
 package com.project.template.exception;
 
 
-public class EntityExistsException extends RuntimeException {
+public class EntityExistsException extends DomainException {
     private static final long serialVersionUID = 1L;
 
     public EntityExistsException(String message) {
@@ -0,0 +1,50 @@
+package com.project.template.exception;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Writes {@link ApiError#getTimestamp()} in the same dd-MM-yyyy hh:mm:ss format,
+ * formatting it once per second instead of once per error.
+ */
+public class ErrorTimestampSerializer extends StdSerializer<LocalDateTime> {
+
+  static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern(
+    "dd-MM-yyyy hh:mm:ss"
+  );
+
+  private static volatile FormattedSecond lastFormatted = new FormattedSecond(
+    LocalDateTime.MIN,
+    ""
+  );
+
+  public ErrorTimestampSerializer() {
+    super(LocalDateTime.class);
+  }
+
+  @Override
+  public void serialize(
+    LocalDateTime value,
+    JsonGenerator generator,
+    SerializerProvider provider
+  ) throws IOException {
+    generator.writeString(format(value));
+  }
+
+  static String format(LocalDateTime value) {
+    LocalDateTime second = value.truncatedTo(ChronoUnit.SECONDS);
+    FormattedSecond cached = lastFormatted;
+    if (cached.second().equals(second)) return cached.text();
+
+    String text = FORMATTER.format(second);
+    lastFormatted = new FormattedSecond(second, text);
+    return text;
+  }
+
+  private record FormattedSecond(LocalDateTime second, String text) {}
+}
@@ -1,6 +1,6 @@
 package com.project.template.exception;
 
-public class OperationNotAllowedException extends RuntimeException {
+public class OperationNotAllowedException extends DomainException {
     private static final long serialVersionUID = 1L;
 
     public OperationNotAllowedException(String message) {
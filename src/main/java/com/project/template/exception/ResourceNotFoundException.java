@@ -1,6 +1,6 @@
 package com.project.template.exception;
 
-public class ResourceNotFoundException extends RuntimeException {
+public class ResourceNotFoundException extends DomainException {
     private static final long serialVersionUID = 1L;
 
     public ResourceNotFoundException(String message) {
@@ -1,6 +1,6 @@
 package com.project.template.exception;
 
-public class SecurityCipherDecodeException extends RuntimeException {
+public class SecurityCipherDecodeException extends DomainException {
 
     private static final long serialVersionUID = 1L;
 
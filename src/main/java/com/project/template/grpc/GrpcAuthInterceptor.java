@@ -0,0 +1,58 @@
+package com.project.template.grpc;
+
+import io.grpc.Metadata;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+import io.grpc.Status;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+/**
+ * Only lets through calls sending "authorization: Bearer {grpc.authToken}" in
+ * their metadata, compared in constant time. Everything else is closed with
+ * UNAUTHENTICATED before reaching a service.
+ */
+public class GrpcAuthInterceptor implements ServerInterceptor {
+
+  static final Metadata.Key<String> AUTHORIZATION = Metadata.Key.of(
+    "authorization",
+    Metadata.ASCII_STRING_MARSHALLER
+  );
+  static final String BEARER_PREFIX = "Bearer ";
+
+  private final byte[] expectedAuthorization;
+
+  public GrpcAuthInterceptor(String authToken) {
+    if (authToken == null || authToken.isBlank()) {
+      throw new IllegalStateException(
+        "grpc.authToken must be set when the gRPC server is enabled"
+      );
+    }
+    this.expectedAuthorization =
+      (BEARER_PREFIX + authToken).getBytes(StandardCharsets.UTF_8);
+  }
+
+  @Override
+  public <ReqT, RespT> ServerCall.Listener<ReqT> interceptCall(
+    ServerCall<ReqT, RespT> call,
+    Metadata headers,
+    ServerCallHandler<ReqT, RespT> next
+  ) {
+    String authorization = headers.get(AUTHORIZATION);
+    if (
+      authorization == null ||
+      !MessageDigest.isEqual(
+        expectedAuthorization,
+        authorization.getBytes(StandardCharsets.UTF_8)
+      )
+    ) {
+      call.close(
+        Status.UNAUTHENTICATED.withDescription("Missing or invalid credentials"),
+        new Metadata()
+      );
+      return new ServerCall.Listener<>() {};
+    }
+    return next.startCall(call, headers);
+  }
+}
@@ -0,0 +1,113 @@
+package com.project.template.grpc;
+
+import com.project.template.config.GrpcServerProperties;
+import io.grpc.BindableService;
+import io.grpc.Server;
+import io.grpc.netty.shaded.io.grpc.netty.NettyServerBuilder;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+/**
+ * Runs the gRPC services on their own Netty server and port, started after the
+ * rest of the context and stopped before it. Calls run on the server's default
+ * executor and never go through the Spring Security filter chain: they are
+ * authenticated by GrpcAuthInterceptor and the server binds to grpc.address.
+ */
+@Slf4j
+@Component
+@EnableConfigurationProperties(GrpcServerProperties.class)
+@ConditionalOnProperty(
+  prefix = "grpc",
+  name = "enabled",
+  havingValue = "true"
+)
+public class GrpcServerLifecycle implements SmartLifecycle {
+
+  private final GrpcServerProperties properties;
+  private final List<BindableService> services;
+  private volatile Server server;
+
+  public GrpcServerLifecycle(
+    GrpcServerProperties properties,
+    List<BindableService> services
+  ) {
+    this.properties = properties;
+    this.services = services;
+  }
+
+  @Override
+  public void start() {
+    GrpcAuthInterceptor authInterceptor = new GrpcAuthInterceptor(
+      properties.getAuthToken()
+    );
+    NettyServerBuilder builder = NettyServerBuilder
+      .forAddress(
+        new InetSocketAddress(properties.getAddress(), properties.getPort())
+      )
+      .intercept(authInterceptor)
+      .keepAliveTime(properties.getKeepAliveTimeSec(), TimeUnit.SECONDS)
+      .permitKeepAliveTime(
+        properties.getPermitKeepAliveTimeSec(),
+        TimeUnit.SECONDS
+      )
+      .permitKeepAliveWithoutCalls(true)
+      .maxConcurrentCallsPerConnection(
+        properties.getMaxConcurrentCallsPerConnection()
+      );
+    services.forEach(builder::addService);
+    try {
+      server = builder.build().start();
+    } catch (IOException ex) {
+      throw new UncheckedIOException(
+        "Could not start the gRPC server on " +
+        properties.getAddress() +
+        ":" +
+        properties.getPort(),
+        ex
+      );
+    }
+    log.info(
+      "gRPC server started on {}:{}",
+      properties.getAddress(),
+      server.getPort()
+    );
+  }
+
+  @Override
+  public void stop() {
+    Server running = server;
+    if (running == null) return;
+    running.shutdown();
+    try {
+      if (
+        !running.awaitTermination(
+          properties.getShutdownGraceMsec(),
+          TimeUnit.MILLISECONDS
+        )
+      ) {
+        running.shutdownNow();
+      }
+    } catch (InterruptedException ex) {
+      running.shutdownNow();
+      Thread.currentThread().interrupt();
+    }
+    server = null;
+  }
+
+  @Override
+  public boolean isRunning() {
+    return server != null;
+  }
+
+  public int getPort() {
+    return server == null ? -1 : server.getPort();
+  }
+}
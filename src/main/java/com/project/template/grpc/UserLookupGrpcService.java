@@ -0,0 +1,158 @@
+package com.project.template.grpc;
+
+import com.project.template.dto.TokenIntrospectionResult;
+import com.project.template.grpc.v1.BatchValidateTokenRequest;
+import com.project.template.grpc.v1.BatchValidateTokenResponse;
+import com.project.template.grpc.v1.GetUsersRequest;
+import com.project.template.grpc.v1.GetUsersResponse;
+import com.project.template.grpc.v1.UserLookupGrpc;
+import com.project.template.grpc.v1.UserMessage;
+import com.project.template.grpc.v1.ValidateTokenRequest;
+import com.project.template.grpc.v1.ValidateTokenResponse;
+import com.project.template.model.User;
+import com.project.template.service.UserService;
+import io.grpc.Status;
+import io.grpc.stub.StreamObserver;
+import java.util.List;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+/**
+ * gRPC twin of the validate-token, introspect and user lookup endpoints. Token
+ * checks go through UserService.introspect, so they share its parallel
+ * verification, single batched user query and rejected-token cache.
+ */
+@Slf4j
+@Component
+public class UserLookupGrpcService extends UserLookupGrpc.UserLookupImplBase {
+
+  static final int MAX_BATCH_SIZE = 1000;
+
+  private final UserService userService;
+
+  public UserLookupGrpcService(UserService userService) {
+    this.userService = userService;
+  }
+
+  @Override
+  public void validateToken(
+    ValidateTokenRequest request,
+    StreamObserver<ValidateTokenResponse> responseObserver
+  ) {
+    if (request.getToken().isEmpty()) {
+      responseObserver.onError(
+        Status.INVALID_ARGUMENT.withDescription("token is required").asException()
+      );
+      return;
+    }
+    try {
+      responseObserver.onNext(
+        toMessage(userService.introspect(List.of(request.getToken())).get(0))
+      );
+      responseObserver.onCompleted();
+    } catch (RuntimeException ex) {
+      responseObserver.onError(internalError(ex));
+    }
+  }
+
+  /**
+   * Each request message is validated as one introspection batch and answered
+   * with one response message, in order.
+   */
+  @Override
+  public StreamObserver<BatchValidateTokenRequest> batchValidateToken(
+    StreamObserver<BatchValidateTokenResponse> responseObserver
+  ) {
+    return new StreamObserver<>() {
+      private boolean failed;
+
+      @Override
+      public void onNext(BatchValidateTokenRequest request) {
+        if (failed) return;
+        if (request.getTokensCount() > MAX_BATCH_SIZE) {
+          fail(
+            Status.INVALID_ARGUMENT
+              .withDescription("At most " + MAX_BATCH_SIZE + " tokens per message")
+              .asException()
+          );
+          return;
+        }
+        try {
+          BatchValidateTokenResponse.Builder response = BatchValidateTokenResponse.newBuilder();
+          if (request.getTokensCount() > 0) {
+            userService
+              .introspect(request.getTokensList())
+              .forEach(result -> response.addResults(toMessage(result)));
+          }
+          responseObserver.onNext(response.build());
+        } catch (RuntimeException ex) {
+          fail(internalError(ex));
+        }
+      }
+
+      @Override
+      public void onError(Throwable t) {
+        log.debug("Batch token validation cancelled by the client: {}", t.getMessage());
+      }
+
+      @Override
+      public void onCompleted() {
+        if (!failed) responseObserver.onCompleted();
+      }
+
+      private void fail(Exception error) {
+        failed = true;
+        responseObserver.onError(error);
+      }
+    };
+  }
+
+  @Override
+  public void getUsers(
+    GetUsersRequest request,
+    StreamObserver<GetUsersResponse> responseObserver
+  ) {
+    if (request.getIdsCount() > MAX_BATCH_SIZE) {
+      responseObserver.onError(
+        Status.INVALID_ARGUMENT
+          .withDescription("At most " + MAX_BATCH_SIZE + " ids per request")
+          .asException()
+      );
+      return;
+    }
+    try {
+      GetUsersResponse.Builder response = GetUsersResponse.newBuilder();
+      if (request.getIdsCount() > 0) {
+        userService
+          .findAllById(request.getIdsList())
+          .forEach(user -> response.addUsers(toMessage(user)));
+      }
+      responseObserver.onNext(response.build());
+      responseObserver.onCompleted();
+    } catch (RuntimeException ex) {
+      responseObserver.onError(internalError(ex));
+    }
+  }
+
+  static UserMessage toMessage(User user) {
+    UserMessage.Builder message = UserMessage.newBuilder();
+    if (user.getId() != null) message.setId(user.getId());
+    if (user.getEmail() != null) message.setEmail(user.getEmail());
+    if (user.getName() != null) message.setName(user.getName());
+    return message.build();
+  }
+
+  private static ValidateTokenResponse toMessage(TokenIntrospectionResult result) {
+    ValidateTokenResponse.Builder message = ValidateTokenResponse
+      .newBuilder()
+      .setActive(result.isActive());
+    if (result.getUser() != null) message.setUser(toMessage(result.getUser()));
+    if (result.getError() != null) message.setError(result.getError());
+    return message.build();
+  }
+
+  private static Exception internalError(RuntimeException ex) {
+    log.warn("gRPC user lookup failed", ex);
+    return Status.INTERNAL.withDescription("Unexpected error").asException();
+  }
+}
@@ -0,0 +1,195 @@
+package com.project.template.limit;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Gradient concurrency limit: once per window the average latency of each
+ * priority class is compared with that class's own long-term baseline (so a
+ * burst of bcrypt logins isn't mistaken for the whole service slowing down).
+ * While requests run within tolerance of their baselines the limit grows by
+ * about sqrt(limit) per window, beyond it shrinks by the gradient, at most by
+ * half. The limit doesn't grow while less than half of it is in use.
+ */
+public class AdaptiveConcurrencyLimit implements MeterBinder {
+
+  private static final Priority[] PRIORITIES = Priority.values();
+  private static final double MIN_GRADIENT = 0.5;
+
+  private final ConcurrencyLimitProperties properties;
+  private final LongSupplier nanoClock;
+  private final long windowNanos;
+  private final AtomicInteger inFlight = new AtomicInteger();
+  private final AtomicInteger maxInFlight = new AtomicInteger();
+  private final AtomicLong windowStart;
+  private final LongAdder[] windowLatency = adders();
+  private final LongAdder[] windowSamples = adders();
+  private final LongAdder[] rejected = adders();
+  private final double[] baselineNanos = new double[PRIORITIES.length];
+  private double exactLimit;
+  private volatile int limit;
+
+  public AdaptiveConcurrencyLimit(ConcurrencyLimitProperties properties) {
+    this(properties, System::nanoTime);
+  }
+
+  AdaptiveConcurrencyLimit(
+    ConcurrencyLimitProperties properties,
+    LongSupplier nanoClock
+  ) {
+    this.properties = properties;
+    this.nanoClock = nanoClock;
+    this.windowNanos = TimeUnit.MILLISECONDS.toNanos(properties.getWindowMsec());
+    this.windowStart = new AtomicLong(nanoClock.getAsLong());
+    this.exactLimit = clamp(properties.getInitialLimit());
+    this.limit = (int) exactLimit;
+  }
+
+  /**
+   * Takes a slot when the in-flight count is below the share of the limit
+   * the priority may use, never waits.
+   */
+  public boolean tryAcquire(Priority priority) {
+    int threshold = threshold(priority);
+    int current;
+    do {
+      current = inFlight.get();
+      if (current >= threshold) {
+        rejected[priority.ordinal()].increment();
+        return false;
+      }
+    } while (!inFlight.compareAndSet(current, current + 1));
+    maxInFlight.accumulateAndGet(current + 1, Math::max);
+    return true;
+  }
+
+  public long start() {
+    return nanoClock.getAsLong();
+  }
+
+  /**
+   * Frees the slot and feeds the latency since start into the limit.
+   */
+  public void release(Priority priority, long start) {
+    inFlight.decrementAndGet();
+    long now = nanoClock.getAsLong();
+    windowLatency[priority.ordinal()].add(now - start);
+    windowSamples[priority.ordinal()].increment();
+    long currentWindow = windowStart.get();
+    if (
+      now - currentWindow >= windowNanos &&
+      windowStart.compareAndSet(currentWindow, now)
+    ) {
+      closeWindow();
+    }
+  }
+
+  /**
+   * Frees the slot without a sample, for requests that failed before doing
+   * representative work.
+   */
+  public void releaseWithoutSample() {
+    inFlight.decrementAndGet();
+  }
+
+  public int getLimit() {
+    return limit;
+  }
+
+  public int getInFlight() {
+    return inFlight.get();
+  }
+
+  int threshold(Priority priority) {
+    int current = limit;
+    return switch (priority) {
+      case HIGH -> current;
+      case NORMAL -> Math.max(1, (int) (current * properties.getNormalShare()));
+      case LOW -> Math.max(1, (int) (current * properties.getLowShare()));
+    };
+  }
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    Gauge
+      .builder("concurrency.limit", this, AdaptiveConcurrencyLimit::getLimit)
+      .description("Requests let in at once")
+      .register(registry);
+    Gauge
+      .builder("concurrency.inflight", this, AdaptiveConcurrencyLimit::getInFlight)
+      .register(registry);
+    for (Priority priority : PRIORITIES) {
+      FunctionCounter
+        .builder("concurrency.rejected", rejected[priority.ordinal()], LongAdder::sum)
+        .tag("priority", priority.tag)
+        .description("Requests answered 503 by the concurrency limit")
+        .register(registry);
+    }
+  }
+
+  private synchronized void closeWindow() {
+    long total = 0;
+    for (LongAdder samples : windowSamples) total += samples.sum();
+    // too few samples: they carry over to the next window
+    if (total < properties.getMinWindowSamples()) return;
+
+    int peak = maxInFlight.getAndSet(inFlight.get());
+    boolean congested = peak >= exactLimit / 2 && limit > properties.getMinLimit();
+    double weightedRatio = 0;
+    long counted = 0;
+    for (Priority priority : PRIORITIES) {
+      int index = priority.ordinal();
+      long samples = windowSamples[index].sumThenReset();
+      long latency = windowLatency[index].sumThenReset();
+      if (samples == 0) continue;
+      double average = (double) latency / samples;
+      if (baselineNanos[index] == 0) baselineNanos[index] = average;
+      weightedRatio += samples * (average / baselineNanos[index]);
+      counted += samples;
+      updateBaseline(index, average, congested);
+    }
+    double gradient = Math.max(
+      MIN_GRADIENT,
+      Math.min(1.0, properties.getTolerance() / (weightedRatio / counted))
+    );
+    double target = exactLimit * gradient + Math.sqrt(exactLimit);
+    if (peak < exactLimit / 2) {
+      target = Math.min(target, exactLimit);
+    }
+    exactLimit =
+      clamp(
+        exactLimit * (1 - properties.getSmoothing()) + target * properties.getSmoothing()
+      );
+    limit = (int) exactLimit;
+  }
+
+  /**
+   * Moving average over baselineWindows windows. It only rises on windows
+   * that weren't congested, otherwise sustained overload would slowly become
+   * the new normal. A lasting slowdown (slower database, bigger bcrypt cost)
+   * still gets learned once the limit is down to minLimit. Drops faster when
+   * requests got much quicker.
+   */
+  private void updateBaseline(int index, double average, boolean congested) {
+    if (congested && average > baselineNanos[index]) return;
+    baselineNanos[index] += (average - baselineNanos[index]) / properties.getBaselineWindows();
+    if (baselineNanos[index] > 2 * average) baselineNanos[index] *= 0.95;
+  }
+
+  private double clamp(double value) {
+    return Math.max(properties.getMinLimit(), Math.min(properties.getMaxLimit(), value));
+  }
+
+  private static LongAdder[] adders() {
+    LongAdder[] adders = new LongAdder[PRIORITIES.length];
+    for (int i = 0; i < adders.length; i++) adders[i] = new LongAdder();
+    return adders;
+  }
+}
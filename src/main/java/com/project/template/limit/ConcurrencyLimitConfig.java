@@ -0,0 +1,38 @@
+package com.project.template.limit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+/**
+ * Registered right after the Server-Timing filter, ahead of Spring Security.
+ */
+@Configuration
+@EnableConfigurationProperties(ConcurrencyLimitProperties.class)
+@ConditionalOnProperty(prefix = "concurrency-limit", name = "enabled", havingValue = "true")
+public class ConcurrencyLimitConfig {
+
+  @Bean
+  AdaptiveConcurrencyLimit adaptiveConcurrencyLimit(
+    ConcurrencyLimitProperties properties
+  ) {
+    return new AdaptiveConcurrencyLimit(properties);
+  }
+
+  @Bean
+  FilterRegistrationBean<ConcurrencyLimitFilter> concurrencyLimitFilter(
+    AdaptiveConcurrencyLimit limit,
+    ConcurrencyLimitProperties properties,
+    @Value("${authentication.auth.accessTokenCookieName}") String accessTokenCookieName
+  ) {
+    FilterRegistrationBean<ConcurrencyLimitFilter> registration = new FilterRegistrationBean<>(
+      new ConcurrencyLimitFilter(limit, properties, accessTokenCookieName)
+    );
+    registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 1);
+    return registration;
+  }
+}
@@ -0,0 +1,158 @@
+package com.project.template.limit;
+
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import com.project.template.utils.CookieUtil;
+import java.io.IOException;
+import java.util.Enumeration;
+import java.util.Set;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * Sheds load in front of the security chain: requests over their priority's
+ * share of the adaptive limit get an empty 503 with Retry-After straight
+ * away, so they cost neither a cookie decrypt nor a worker stuck in the
+ * queue, and the admitted ones keep their latency.
+ */
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+  static final Set<String> LOW_PRIORITY_POSTS = Set.of(
+    "/api/v1/users",
+    "/api/v1/users/login"
+  );
+
+  private final AdaptiveConcurrencyLimit limit;
+  private final ConcurrencyLimitProperties properties;
+  private final String accessTokenCookieName;
+
+  public ConcurrencyLimitFilter(
+    AdaptiveConcurrencyLimit limit,
+    ConcurrencyLimitProperties properties,
+    String accessTokenCookieName
+  ) {
+    this.limit = limit;
+    this.properties = properties;
+    this.accessTokenCookieName = accessTokenCookieName;
+  }
+
+  @Override
+  protected boolean shouldNotFilter(HttpServletRequest request) {
+    String path = path(request);
+    for (String exemptPath : properties.getExemptPaths()) {
+      if (path.startsWith(exemptPath)) return true;
+    }
+    return false;
+  }
+
+  @Override
+  protected void doFilterInternal(
+    HttpServletRequest request,
+    HttpServletResponse response,
+    FilterChain filterChain
+  ) throws ServletException, IOException {
+    Priority priority = priority(request);
+    if (!limit.tryAcquire(priority)) {
+      response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+      response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(properties.getRetryAfterSec()));
+      return;
+    }
+    long start = limit.start();
+    boolean completed = false;
+    try {
+      filterChain.doFilter(request, response);
+      completed = true;
+    } finally {
+      if (completed && request.isAsyncStarted()) {
+        request.getAsyncContext().addListener(new ReleaseOnComplete(priority, start));
+      } else if (completed) {
+        limit.release(priority, start);
+      } else {
+        limit.releaseWithoutSample();
+      }
+    }
+  }
+
+  /**
+   * Classified from the request line and the presence of credentials only,
+   * the token itself is checked later by the security chain. That makes HIGH
+   * spoofable: any GET with an accessToken cookie or a Bearer header, valid
+   * or not, gets into the share kept for signed-in users. It only protects
+   * signed-in users from anonymous load that doesn't bother to fake one.
+   */
+  Priority priority(HttpServletRequest request) {
+    String method = request.getMethod();
+    if (
+      HttpMethod.POST.matches(method) &&
+      LOW_PRIORITY_POSTS.contains(path(request))
+    ) {
+      return Priority.LOW;
+    }
+    boolean read = HttpMethod.GET.matches(method) || HttpMethod.HEAD.matches(method);
+    return read && hasCredentials(request) ? Priority.HIGH : Priority.NORMAL;
+  }
+
+  /**
+   * Path within the application as the dispatcher maps it: no context path,
+   * no ;jsessionid style parameters (getRequestURI keeps both) and no
+   * trailing slash.
+   */
+  private static String path(HttpServletRequest request) {
+    String path = request.getServletPath();
+    if (request.getPathInfo() != null) path += request.getPathInfo();
+    if (path.length() > 1 && path.endsWith("/")) {
+      path = path.substring(0, path.length() - 1);
+    }
+    return path;
+  }
+
+  /**
+   * Scans the Cookie headers like TokenAuthenticationFilter instead of
+   * getCookies, which parses every cookie into objects.
+   */
+  private boolean hasCredentials(HttpServletRequest request) {
+    String authorization = request.getHeader(HttpHeaders.AUTHORIZATION);
+    if (authorization != null && authorization.startsWith("Bearer ")) return true;
+    Enumeration<String> cookieHeaders = request.getHeaders(HttpHeaders.COOKIE);
+    if (cookieHeaders == null) return false;
+    while (cookieHeaders.hasMoreElements()) {
+      String cookieHeader = cookieHeaders.nextElement();
+      int valueStart = CookieUtil.findCookieValue(cookieHeader, accessTokenCookieName);
+      if (valueStart < 0) continue;
+      return CookieUtil.cookieValueEnd(cookieHeader, valueStart) > valueStart;
+    }
+    return false;
+  }
+
+  private class ReleaseOnComplete implements AsyncListener {
+
+    private final Priority priority;
+    private final long start;
+
+    ReleaseOnComplete(Priority priority, long start) {
+      this.priority = priority;
+      this.start = start;
+    }
+
+    @Override
+    public void onComplete(AsyncEvent event) {
+      limit.release(priority, start);
+    }
+
+    @Override
+    public void onTimeout(AsyncEvent event) {}
+
+    @Override
+    public void onError(AsyncEvent event) {}
+
+    @Override
+    public void onStartAsync(AsyncEvent event) {
+      event.getAsyncContext().addListener(this);
+    }
+  }
+}
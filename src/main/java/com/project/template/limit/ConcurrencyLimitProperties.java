@@ -0,0 +1,64 @@
+package com.project.template.limit;
+
+import java.util.ArrayList;
+import java.util.List;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "concurrency-limit")
+public class ConcurrencyLimitProperties {
+
+  private boolean enabled = false;
+
+  /**
+   * Starts at the worker thread count (server.tomcat.threads.max), the limit
+   * then moves with the measured latency.
+   */
+  private int initialLimit = 200;
+
+  private int minLimit = 4;
+
+  private int maxLimit = 500;
+
+  /**
+   * How much slower than its baseline the average request may get before the
+   * limit shrinks, 1.5 allows 50%.
+   */
+  private double tolerance = 1.5;
+
+  /**
+   * Latency samples are folded into the limit once per window.
+   */
+  private long windowMsec = 250;
+
+  /**
+   * Windows with fewer samples don't move the limit.
+   */
+  private int minWindowSamples = 10;
+
+  /**
+   * Weight of a new window in the limit, lower values move it more slowly.
+   */
+  private double smoothing = 0.2;
+
+  /**
+   * Windows the per-class latency baseline averages over.
+   */
+  private int baselineWindows = 600;
+
+  /**
+   * Share of the limit the NORMAL and LOW classes can fill, the rest is kept
+   * for authenticated reads.
+   */
+  private double normalShare = 0.9;
+
+  private double lowShare = 0.5;
+
+  private long retryAfterSec = 1;
+
+  /**
+   * Never limited, probes included so an overloaded instance isn't restarted.
+   */
+  private List<String> exemptPaths = new ArrayList<>(List.of("/actuator/health"));
+}
@@ -0,0 +1,24 @@
+package com.project.template.limit;
+
+import java.util.Locale;
+
+/**
+ * Admission order under overload: a class is let in while the in-flight count
+ * is below its share of the limit.
+ */
+public enum Priority {
+  /**
+   * Reads carrying credentials, cheap and what logged in users wait on.
+   */
+  HIGH,
+  /**
+   * Other calls: writes, refresh, public lookups.
+   */
+  NORMAL,
+  /**
+   * Signup and login, which spend a bcrypt hash each.
+   */
+  LOW;
+
+  final String tag = name().toLowerCase(Locale.ROOT);
+}
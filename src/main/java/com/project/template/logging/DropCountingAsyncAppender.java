@@ -0,0 +1,33 @@
+package com.project.template.logging;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * AsyncAppender that counts what it drops instead of discarding silently. With
+ * neverBlock the request threads never wait on the queue: when it is full the
+ * event is lost, and below the discarding threshold TRACE/DEBUG/INFO are
+ * skipped. The count is read from the queue state before handing the event
+ * over, so it is approximate under contention, good enough for an alert.
+ */
+public class DropCountingAsyncAppender extends AsyncAppender {
+
+  private static final LongAdder DROPPED = new LongAdder();
+
+  public static long droppedEvents() {
+    return DROPPED.sum();
+  }
+
+  @Override
+  protected void append(ILoggingEvent event) {
+    int remainingCapacity = getRemainingCapacity();
+    if (
+      remainingCapacity == 0 ||
+      (remainingCapacity < getDiscardingThreshold() && isDiscardable(event))
+    ) {
+      DROPPED.increment();
+    }
+    super.append(event);
+  }
+}
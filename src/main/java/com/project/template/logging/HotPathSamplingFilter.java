@@ -0,0 +1,99 @@
+package com.project.template.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import org.slf4j.Marker;
+
+/**
+ * Lets through at most {@code eventsPerSecond} events per message template for
+ * the configured logger prefixes, the rest of the second is dropped before any
+ * formatting happens. ERROR is never sampled.
+ *
+ * <pre>
+ * &lt;turboFilter class="com.project.template.logging.HotPathSamplingFilter"&gt;
+ *   &lt;loggers&gt;com.project.template.config,org.hibernate&lt;/loggers&gt;
+ *   &lt;eventsPerSecond&gt;20&lt;/eventsPerSecond&gt;
+ * &lt;/turboFilter&gt;
+ * </pre>
+ */
+public class HotPathSamplingFilter extends TurboFilter {
+
+  private static final LongAdder SAMPLED_OUT = new LongAdder();
+
+  /** Caps the tracked templates, anything past it is let through as is. */
+  private static final int MAX_TEMPLATES = 1024;
+
+  private List<String> loggers = List.of();
+  private int eventsPerSecond = 20;
+  private final Map<String, Window> windows = new ConcurrentHashMap<>();
+
+  public static long sampledOutEvents() {
+    return SAMPLED_OUT.sum();
+  }
+
+  public void setLoggers(String loggers) {
+    this.loggers =
+      Arrays.stream(loggers.split(",")).map(String::trim).toList();
+  }
+
+  public void setEventsPerSecond(int eventsPerSecond) {
+    this.eventsPerSecond = eventsPerSecond;
+  }
+
+  @Override
+  public FilterReply decide(
+    Marker marker,
+    Logger logger,
+    Level level,
+    String format,
+    Object[] params,
+    Throwable t
+  ) {
+    if (
+      format == null ||
+      level == null ||
+      level.isGreaterOrEqual(Level.ERROR) ||
+      !level.isGreaterOrEqual(logger.getEffectiveLevel()) ||
+      !isHotPath(logger.getName())
+    ) {
+      return FilterReply.NEUTRAL;
+    }
+    Window window = windows.get(format);
+    if (window == null) {
+      if (windows.size() >= MAX_TEMPLATES) return FilterReply.NEUTRAL;
+      window = windows.computeIfAbsent(format, key -> new Window());
+    }
+    if (window.tryAcquire(System.currentTimeMillis() / 1000, eventsPerSecond)) {
+      return FilterReply.NEUTRAL;
+    }
+    SAMPLED_OUT.increment();
+    return FilterReply.DENY;
+  }
+
+  private boolean isHotPath(String loggerName) {
+    for (String prefix : loggers) {
+      if (loggerName.startsWith(prefix)) return true;
+    }
+    return false;
+  }
+
+  private static class Window {
+
+    private final AtomicLong second = new AtomicLong();
+    private final AtomicLong count = new AtomicLong();
+
+    boolean tryAcquire(long now, int limit) {
+      long current = second.get();
+      if (current != now && second.compareAndSet(current, now)) count.set(0);
+      return count.incrementAndGet() <= limit;
+    }
+  }
+}
@@ -0,0 +1,36 @@
+package com.project.template.logging;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.stereotype.Component;
+
+/**
+ * Publishes the log events lost to a full async queue and to hot-path sampling,
+ * both stay at 0 outside the prod logging setup.
+ */
+@Component
+public class LoggingMetrics implements MeterBinder {
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    FunctionCounter
+      .builder(
+        "logging.events.dropped",
+        this,
+        metrics -> DropCountingAsyncAppender.droppedEvents()
+      )
+      .tag("reason", "queue_full")
+      .description("Log events dropped by the async appender")
+      .register(registry);
+    FunctionCounter
+      .builder(
+        "logging.events.dropped",
+        this,
+        metrics -> HotPathSamplingFilter.sampledOutEvents()
+      )
+      .tag("reason", "sampled")
+      .description("Repetitive log events dropped by the sampling filter")
+      .register(registry);
+  }
+}
@@ -1,5 +1,6 @@
 package com.project.template.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
@@ -8,16 +9,18 @@ import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
+import java.time.LocalDateTime;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.experimental.SuperBuilder;
+import org.hibernate.annotations.ColumnDefault;
 
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
-@Builder
+@Builder(toBuilder = true)
 @Entity
 @Table(name = "users")
 public class User {
@@ -35,4 +38,22 @@ public class User {
 
   @JsonProperty(access = JsonProperty.Access.WRITE_ONLY)
   private String password;
+
+  @JsonIgnore
+  @Builder.Default
+  @Column(name = "token_version", nullable = false)
+  private Integer tokenVersion = 0;
+
+  /**
+   * Written in batches by LoginActivityRecorder, never through the entity.
+   */
+  @JsonIgnore
+  @Column(name = "last_login_at", insertable = false, updatable = false)
+  private LocalDateTime lastLoginAt;
+
+  @JsonIgnore
+  @Builder.Default
+  @ColumnDefault("0")
+  @Column(name = "login_count", nullable = false, insertable = false, updatable = false)
+  private Long loginCount = 0L;
 }
@@ -0,0 +1,33 @@
+package com.project.template.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("com.project.template.AuthFilter")
+@Label("Token Authentication Filter")
+@Category({ "Template", "Auth" })
+@StackTrace(false)
+public class AuthFilterEvent extends Event {
+
+  public static final String ANONYMOUS = "anonymous";
+  public static final String AUTHENTICATED = "authenticated";
+  public static final String REJECTED = "rejected";
+  public static final String ERROR = "error";
+
+  @Label("Outcome")
+  String outcome;
+
+  @Label("Path")
+  String path;
+
+  public void finish(String outcome, String path) {
+    end();
+    if (!shouldCommit()) return;
+    this.outcome = outcome;
+    this.path = path;
+    commit();
+  }
+}
@@ -0,0 +1,28 @@
+package com.project.template.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("com.project.template.CookieCipher")
+@Label("Cookie Cipher")
+@Category({ "Template", "Auth" })
+@StackTrace(false)
+public class CookieCipherEvent extends Event {
+
+  @Label("Operation")
+  String operation;
+
+  @Label("Success")
+  boolean success;
+
+  public void finish(String operation, boolean success) {
+    end();
+    if (!shouldCommit()) return;
+    this.operation = operation;
+    this.success = success;
+    commit();
+  }
+}
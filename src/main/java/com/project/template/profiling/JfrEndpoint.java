@@ -0,0 +1,173 @@
+package com.project.template.profiling;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.actuate.endpoint.web.annotation.WebEndpoint;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpStatus;
+import org.springframework.lang.Nullable;
+
+/**
+ * On-demand JFR recording, one at a time:
+ * POST /actuator/jfr starts it (optional settings and maxDurationSec),
+ * DELETE /actuator/jfr stops it and writes the file, GET /actuator/jfr/{name}
+ * downloads it and GET /actuator/jfr reports the state. Only the latest file
+ * is kept on disk.
+ */
+@Slf4j
+@WebEndpoint(id = "jfr")
+public class JfrEndpoint {
+
+  private static final String JFC_EXTENSION = ".jfc";
+
+  private final ProfilingProperties properties;
+  private Recording recording;
+  private Path lastDump;
+
+  public JfrEndpoint(ProfilingProperties properties) {
+    this.properties = properties;
+  }
+
+  @ReadOperation
+  public synchronized Map<String, Object> status() {
+    Map<String, Object> status = new LinkedHashMap<>();
+    status.put(
+      "state",
+      recording == null ? RecordingState.CLOSED.name() : recording.getState().name()
+    );
+    if (recording != null) {
+      status.put("name", recording.getName());
+      status.put("startedAt", recording.getStartTime());
+    }
+    if (lastDump != null) status.put("file", lastDump.getFileName().toString());
+    return status;
+  }
+
+  @WriteOperation
+  public synchronized WebEndpointResponse<Map<String, Object>> start(
+    @Nullable String settings,
+    @Nullable Long maxDurationSec
+  ) {
+    if (recording != null && recording.getState() == RecordingState.RUNNING) {
+      return new WebEndpointResponse<>(
+        Map.of("error", "A recording is already running"),
+        HttpStatus.CONFLICT.value()
+      );
+    }
+    if (maxDurationSec != null && maxDurationSec < 1) {
+      return new WebEndpointResponse<>(
+        Map.of("error", "maxDurationSec must be at least 1"),
+        WebEndpointResponse.STATUS_BAD_REQUEST
+      );
+    }
+    if (settings != null && !isBuiltIn(settings)) {
+      return new WebEndpointResponse<>(
+        Map.of("error", "Unknown JFR settings: " + settings),
+        WebEndpointResponse.STATUS_BAD_REQUEST
+      );
+    }
+    Configuration configuration;
+    try {
+      configuration = configuration(settings == null ? properties.getSettings() : settings);
+    } catch (IOException | ParseException ex) {
+      throw new IllegalStateException("Could not read the JFR settings", ex);
+    }
+    closeRecording();
+    long durationSec = Math.min(
+      maxDurationSec == null ? properties.getMaxDurationSec() : maxDurationSec,
+      properties.getMaxDurationSec()
+    );
+    recording = new Recording(configuration);
+    recording.setName("template-" + Instant.now().getEpochSecond());
+    recording.setDuration(Duration.ofSeconds(durationSec));
+    recording.setMaxSize(properties.getMaxSizeMb() * 1024 * 1024);
+    recording.setToDisk(true);
+    recording.start();
+    log.info(
+      "JFR recording {} started with {} settings for at most {}s",
+      recording.getName(),
+      configuration.getName(),
+      durationSec
+    );
+    return new WebEndpointResponse<>(status(), WebEndpointResponse.STATUS_OK);
+  }
+
+  @DeleteOperation
+  public synchronized WebEndpointResponse<Map<String, Object>> stop()
+    throws IOException {
+    if (recording == null) {
+      return new WebEndpointResponse<>(
+        Map.of("error", "No recording to stop"),
+        WebEndpointResponse.STATUS_NOT_FOUND
+      );
+    }
+    if (recording.getState() == RecordingState.RUNNING) recording.stop();
+    Path dump = Path
+      .of(properties.getDirectory())
+      .resolve(recording.getName() + ".jfr");
+    recording.dump(dump);
+    closeRecording();
+    if (lastDump != null && !lastDump.equals(dump)) Files.deleteIfExists(lastDump);
+    lastDump = dump;
+    log.info("JFR recording written to {}", dump);
+    return new WebEndpointResponse<>(status(), WebEndpointResponse.STATUS_OK);
+  }
+
+  /**
+   * Only serves the latest file, the name is matched exactly and never used
+   * to build a path.
+   */
+  @ReadOperation(produces = "application/octet-stream")
+  public synchronized WebEndpointResponse<Resource> download(
+    @Selector String name
+  ) {
+    if (lastDump == null || !lastDump.getFileName().toString().equals(name)) {
+      return new WebEndpointResponse<>(WebEndpointResponse.STATUS_NOT_FOUND);
+    }
+    return new WebEndpointResponse<>(
+      new FileSystemResource(lastDump),
+      WebEndpointResponse.STATUS_OK
+    );
+  }
+
+  /**
+   * Callers can only pick the JDK's own configurations, a .jfc file has to be
+   * set in profiling.settings.
+   */
+  private static boolean isBuiltIn(String settings) {
+    return Configuration
+      .getConfigurations()
+      .stream()
+      .anyMatch(configuration -> configuration.getName().equals(settings));
+  }
+
+  private static Configuration configuration(String settings)
+    throws IOException, ParseException {
+    if (settings.endsWith(JFC_EXTENSION)) {
+      return Configuration.create(Path.of(settings));
+    }
+    return Configuration.getConfiguration(settings);
+  }
+
+  private void closeRecording() {
+    if (recording == null) return;
+    recording.close();
+    recording = null;
+  }
+}
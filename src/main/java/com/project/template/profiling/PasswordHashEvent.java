@@ -0,0 +1,31 @@
+package com.project.template.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("com.project.template.PasswordHash")
+@Label("Password Hash")
+@Category({ "Template", "Auth" })
+@StackTrace(false)
+public class PasswordHashEvent extends Event {
+
+  /**
+   * encode on signup, matches on login.
+   */
+  @Label("Operation")
+  String operation;
+
+  @Label("Matched")
+  boolean matched;
+
+  public void finish(String operation, boolean matched) {
+    end();
+    if (!shouldCommit()) return;
+    this.operation = operation;
+    this.matched = matched;
+    commit();
+  }
+}
@@ -0,0 +1,35 @@
+package com.project.template.profiling;
+
+import java.util.function.Supplier;
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.authorization.AuthorizationManager;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.web.access.intercept.RequestAuthorizationContext;
+
+/**
+ * Grants the profiling endpoint to the authenticated users listed in
+ * profiling.adminEmails. Checked on the principal's email rather than a role,
+ * so it works the same with stateless tokens issued before the list changed.
+ */
+public class ProfilingAccess
+  implements AuthorizationManager<RequestAuthorizationContext> {
+
+  private final ProfilingProperties properties;
+
+  public ProfilingAccess(ProfilingProperties properties) {
+    this.properties = properties;
+  }
+
+  @Override
+  public AuthorizationDecision check(
+    Supplier<Authentication> authentication,
+    RequestAuthorizationContext context
+  ) {
+    Authentication current = authentication.get();
+    boolean admin =
+      current != null &&
+      current.isAuthenticated() &&
+      properties.getAdminEmails().contains(current.getName());
+    return new AuthorizationDecision(admin);
+  }
+}
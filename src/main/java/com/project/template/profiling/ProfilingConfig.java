@@ -0,0 +1,22 @@
+package com.project.template.profiling;
+
+import org.springframework.boot.actuate.autoconfigure.endpoint.condition.ConditionalOnAvailableEndpoint;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(ProfilingProperties.class)
+public class ProfilingConfig {
+
+  @Bean
+  @ConditionalOnAvailableEndpoint
+  JfrEndpoint jfrEndpoint(ProfilingProperties properties) {
+    return new JfrEndpoint(properties);
+  }
+
+  @Bean
+  ProfilingAccess profilingAccess(ProfilingProperties properties) {
+    return new ProfilingAccess(properties);
+  }
+}
@@ -0,0 +1,35 @@
+package com.project.template.profiling;
+
+import java.util.ArrayList;
+import java.util.List;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "profiling")
+public class ProfilingProperties {
+
+  /**
+   * Emails of the users allowed to use the jfr actuator endpoint, nobody by
+   * default.
+   */
+  private List<String> adminEmails = new ArrayList<>();
+
+  /**
+   * JFR settings used when the start call doesn't name one: a built-in
+   * configuration ("default", "profile") or the path of a .jfc file.
+   */
+  private String settings = "profile";
+
+  /**
+   * Recordings stop by themselves after this long.
+   */
+  private Long maxDurationSec = 300L;
+
+  private Long maxSizeMb = 256L;
+
+  /**
+   * Where stopped recordings are written, only the latest one is kept.
+   */
+  private String directory = System.getProperty("java.io.tmpdir");
+}
@@ -0,0 +1,30 @@
+package com.project.template.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("com.project.template.RepositoryCall")
+@Label("Repository Call")
+@Category({ "Template", "Database" })
+public class RepositoryCallEvent extends Event {
+
+  @Label("Repository")
+  String repository;
+
+  @Label("Method")
+  String method;
+
+  @Label("Success")
+  boolean success;
+
+  public void finish(String repository, String method, boolean success) {
+    end();
+    if (!shouldCommit()) return;
+    this.repository = repository;
+    this.method = method;
+    this.success = success;
+    commit();
+  }
+}
@@ -0,0 +1,48 @@
+package com.project.template.profiling;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+import org.springframework.stereotype.Component;
+
+/**
+ * Adds a RepositoryCallEvent around every Spring Data repository method,
+ * derived queries, @Query methods and custom fragments alike.
+ */
+@Component
+public class RepositoryEventsPostProcessor implements BeanPostProcessor {
+
+  @Override
+  public Object postProcessBeforeInitialization(Object bean, String beanName) {
+    if (bean instanceof RepositoryFactoryBeanSupport<?, ?, ?> factoryBean) {
+      factoryBean.addRepositoryFactoryCustomizer(factory ->
+        factory.addRepositoryProxyPostProcessor((proxyFactory, information) ->
+          proxyFactory.addAdvice(
+            new RepositoryEventInterceptor(
+              information.getRepositoryInterface().getSimpleName()
+            )
+          )
+        )
+      );
+    }
+    return bean;
+  }
+
+  private record RepositoryEventInterceptor(String repository)
+    implements MethodInterceptor {
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+      RepositoryCallEvent event = new RepositoryCallEvent();
+      event.begin();
+      boolean success = false;
+      try {
+        Object result = invocation.proceed();
+        success = true;
+        return result;
+      } finally {
+        event.finish(repository, invocation.getMethod().getName(), success);
+      }
+    }
+  }
+}
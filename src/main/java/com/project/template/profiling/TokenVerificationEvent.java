@@ -0,0 +1,28 @@
+package com.project.template.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("com.project.template.TokenVerification")
+@Label("Token Verification")
+@Category({ "Template", "Auth" })
+@StackTrace(false)
+public class TokenVerificationEvent extends Event {
+
+  @Label("Operation")
+  String operation;
+
+  @Label("Valid")
+  boolean valid;
+
+  public void finish(String operation, boolean valid) {
+    end();
+    if (!shouldCommit()) return;
+    this.operation = operation;
+    this.valid = valid;
+    commit();
+  }
+}
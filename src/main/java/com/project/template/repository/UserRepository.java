@@ -1,11 +1,19 @@
 package com.project.template.repository;
 
 import com.project.template.model.User;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
 
-public interface UserRepository extends JpaRepository<User, Long> {
+public interface UserRepository
+  extends JpaRepository<User, Long>, UserRepositoryCustom {
+  @Transactional(readOnly = true)
   @Query("select u from User u where u.email = ?1")
   Optional<User> findUserByEmail(String email);
+
+  @Transactional(readOnly = true)
+  List<User> findAllByEmailIn(Collection<String> emails);
 }
@@ -0,0 +1,29 @@
+package com.project.template.repository;
+
+import com.project.template.dto.UserSearchResult;
+import com.project.template.model.User;
+import java.util.List;
+import java.util.Optional;
+
+public interface UserRepositoryCustom {
+  /**
+   * Inserts the user in a single statement, empty when the email is already
+   * taken. The returned user carries the new id, it isn't attached to the
+   * persistence context.
+   */
+  Optional<User> insertIfAbsent(User user);
+
+  /**
+   * Keyset page of the users whose lowercased name or email starts with
+   * (prefix) or contains the lowercased query, ordered by the value that
+   * matched (the name when both do) and id. The page starts after the row with
+   * the given search key and id, the first one after "" and Long.MIN_VALUE.
+   */
+  List<UserSearchResult> search(
+    String query,
+    boolean prefix,
+    String afterKey,
+    long afterId,
+    int limit
+  );
+}
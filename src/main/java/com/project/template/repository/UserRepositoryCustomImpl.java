@@ -0,0 +1,238 @@
+package com.project.template.repository;
+
+import com.project.template.dto.UserSearchResult;
+import com.project.template.model.User;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+
+/**
+ * On Postgres the id, the insert and the conflict check are one round trip
+ * (ON CONFLICT ... RETURNING). Other databases (H2 in the tests) insert with
+ * generated keys and a duplicate email surfaces as DuplicateKeyException.
+ * <p>
+ * Search is a UNION ALL of one branch per column, each ordered by its search
+ * key and id and limited on its own; users matching on both columns only come
+ * from the name branch. On Postgres a prefix search keys on
+ * lower(column) COLLATE "C", so each branch walks its (key, id) index from
+ * the cursor to the end of the prefix range: a page reads about limit entries
+ * per column, whatever its depth or the number of matches. A substring search
+ * can't walk an index in order, the trigram indexes find every match and they
+ * are sorted, so its cost grows with the number of matches.
+ */
+public class UserRepositoryCustomImpl implements UserRepositoryCustom {
+
+  static final String POSTGRES_INSERT =
+    "INSERT INTO users (id, email, name, password, token_version) " +
+    "VALUES (nextval('user_seq'), ?, ?, ?, ?) " +
+    "ON CONFLICT (email) DO NOTHING RETURNING id";
+
+  static final String DEFAULT_INSERT =
+    "INSERT INTO users (id, email, name, password, token_version) " +
+    "VALUES (NEXT VALUE FOR user_seq, ?, ?, ?, ?)";
+
+  private static final String POSTGRES_KEY = "lower(%s) COLLATE \"C\"";
+  private static final String DEFAULT_KEY = "lower(%s)";
+
+  static final String POSTGRES_PREFIX_SEARCH = searchSql(POSTGRES_KEY, true);
+  static final String DEFAULT_PREFIX_SEARCH = searchSql(DEFAULT_KEY, true);
+  static final String CONTAINS_SEARCH = searchSql(DEFAULT_KEY, false);
+
+  private final JdbcTemplate jdbcTemplate;
+  private volatile Boolean postgres;
+
+  public UserRepositoryCustomImpl(JdbcTemplate jdbcTemplate) {
+    this.jdbcTemplate = jdbcTemplate;
+  }
+
+  @Override
+  public Optional<User> insertIfAbsent(User user) {
+    Optional<Long> id = isPostgres()
+      ? insertReturningId(user)
+      : insertWithGeneratedKey(user);
+    return id.map(newId -> {
+      user.setId(newId);
+      return user;
+    });
+  }
+
+  @Override
+  public List<UserSearchResult> search(
+    String query,
+    boolean prefix,
+    String afterKey,
+    long afterId,
+    int limit
+  ) {
+    String escapedQuery = query
+      .replace("\\", "\\\\")
+      .replace("%", "\\%")
+      .replace("_", "\\_");
+    if (!prefix) return search(
+      CONTAINS_SEARCH,
+      "%" + escapedQuery + "%",
+      afterKey,
+      afterId,
+      null,
+      limit
+    );
+
+    // start the index range at the prefix, a cursor below it has nothing to skip
+    if (afterKey.compareTo(query) < 0) {
+      afterKey = query;
+      afterId = Long.MIN_VALUE;
+    }
+    boolean onPostgres = isPostgres();
+    String end = prefixEnd(query);
+    String sql = end == null
+      ? searchSql(onPostgres ? POSTGRES_KEY : DEFAULT_KEY, false)
+      : onPostgres ? POSTGRES_PREFIX_SEARCH : DEFAULT_PREFIX_SEARCH;
+    return search(sql, escapedQuery + "%", afterKey, afterId, end, limit);
+  }
+
+  private List<UserSearchResult> search(
+    String sql,
+    String pattern,
+    String afterKey,
+    long afterId,
+    String end,
+    int limit
+  ) {
+    List<Object> args = new ArrayList<>();
+    for (boolean emailBranch : new boolean[] { false, true }) {
+      args.add(pattern);
+      if (emailBranch) args.add(pattern);
+      args.add(afterKey);
+      args.add(afterId);
+      if (end != null) args.add(end);
+      args.add(limit);
+    }
+    args.add(limit);
+    return jdbcTemplate.query(
+      sql,
+      (resultSet, rowNum) ->
+        new UserSearchResult(
+          resultSet.getLong(1),
+          resultSet.getString(2),
+          resultSet.getString(3),
+          resultSet.getString(4)
+        ),
+      args.toArray()
+    );
+  }
+
+  /**
+   * Bounded adds the end of the prefix range next to the LIKE, a generic plan
+   * of the prepared statement can't derive the index range from a LIKE
+   * parameter and would scan to the end of the index.
+   */
+  private static String searchSql(String keyFormat, boolean bounded) {
+    String nameBranch = searchBranch(keyFormat.formatted("name"), "", bounded);
+    String emailBranch = searchBranch(
+      keyFormat.formatted("email"),
+      "AND (name IS NULL OR lower(name) NOT LIKE ? ESCAPE '\\') ",
+      bounded
+    );
+    return (
+      "(" + nameBranch + ") UNION ALL (" + emailBranch + ") " +
+      "ORDER BY 4, 1 LIMIT ?"
+    );
+  }
+
+  private static String searchBranch(
+    String key,
+    String exclusion,
+    boolean bounded
+  ) {
+    return (
+      "SELECT id, email, name, " + key + " AS search_key FROM users " +
+      "WHERE " + key + " LIKE ? ESCAPE '\\' " +
+      exclusion +
+      "AND (" + key + ", id) > (?, ?) " +
+      (bounded ? "AND " + key + " < ? " : "") +
+      "ORDER BY 4, 1 LIMIT ?"
+    );
+  }
+
+  /**
+   * The smallest string above every string starting with the prefix, null
+   * when there is none.
+   */
+  static String prefixEnd(String prefix) {
+    int end = prefix.length();
+    while (end > 0) {
+      int last = prefix.codePointBefore(end);
+      end -= Character.charCount(last);
+      if (last == Character.MAX_CODE_POINT) continue;
+      int next = last + 1 == Character.MIN_SURROGATE
+        ? Character.MAX_SURROGATE + 1
+        : last + 1;
+      return prefix.substring(0, end) + Character.toString(next);
+    }
+    return null;
+  }
+
+  private Optional<Long> insertReturningId(User user) {
+    List<Long> ids = jdbcTemplate.queryForList(
+      POSTGRES_INSERT,
+      Long.class,
+      user.getEmail(),
+      user.getName(),
+      user.getPassword(),
+      tokenVersion(user)
+    );
+    return ids.stream().findFirst();
+  }
+
+  private Optional<Long> insertWithGeneratedKey(User user) {
+    KeyHolder keyHolder = new GeneratedKeyHolder();
+    try {
+      jdbcTemplate.update(
+        connection -> {
+          PreparedStatement statement = connection.prepareStatement(
+            DEFAULT_INSERT,
+            new String[] { "id" }
+          );
+          statement.setString(1, user.getEmail());
+          statement.setString(2, user.getName());
+          statement.setString(3, user.getPassword());
+          statement.setInt(4, tokenVersion(user));
+          return statement;
+        },
+        keyHolder
+      );
+    } catch (DuplicateKeyException ex) {
+      return Optional.empty();
+    }
+    return Optional.of(keyHolder.getKeyAs(Long.class));
+  }
+
+  private static int tokenVersion(User user) {
+    return user.getTokenVersion() == null ? 0 : user.getTokenVersion();
+  }
+
+  /**
+   * Resolved on first use, the context must start without a database (CDS
+   * training run).
+   */
+  private boolean isPostgres() {
+    Boolean isPostgres = postgres;
+    if (isPostgres == null) {
+      isPostgres =
+        jdbcTemplate.execute(
+          (ConnectionCallback<Boolean>) connection ->
+            "PostgreSQL".equals(
+                connection.getMetaData().getDatabaseProductName()
+              )
+        );
+      postgres = isPostgres;
+    }
+    return isPostgres;
+  }
+}
@@ -1,16 +1,62 @@
 package com.project.template.service;
 
+import com.project.template.dto.AuthenticatedToken;
+import com.project.template.dto.CustomUserDetails;
 import com.project.template.dto.Token;
+import com.project.template.dto.TokenClaims;
+import com.project.template.model.User;
 import java.time.LocalDateTime;
+import java.util.Optional;
 
 public interface TokenProvider {
   Token generateAccessToken(String subject);
 
   Token generateRefreshToken(String subject);
 
+  /**
+   * Same as {@link #generateAccessToken(String)} but also carries the user id,
+   * name, token version and authorities as claims.
+   */
+  Token generateAccessToken(User user);
+
+  Token generateRefreshToken(User user);
+
+  /**
+   * Access token for a session that started at authTime rather than now, so a
+   * renewed token keeps the original login time.
+   */
+  Token generateAccessToken(String subject, LocalDateTime authTime);
+
+  Token generateAccessToken(User user, LocalDateTime authTime);
+
   String getUsernameFromToken(String token);
 
   LocalDateTime getExpiryDateFromToken(String token);
 
   boolean validateToken(String token);
+
+  /**
+   * Verifies the token and reads its subject in a single parse, empty when the
+   * token is invalid.
+   */
+  Optional<String> findUsernameFromToken(String token);
+
+  /**
+   * Verifies the token once and builds a principal from its claims, empty when
+   * the token is invalid or doesn't carry user claims.
+   */
+  Optional<CustomUserDetails> getUserDetailsFromToken(String token);
+
+  /**
+   * Verifies the token once and reads the claims login needs to decide whether
+   * it can be kept, empty when the token is invalid.
+   */
+  Optional<TokenClaims> findTokenClaims(String token);
+
+  /**
+   * Verifies the token once for the authentication filter: subject, expiry,
+   * session start and the principal from its claims (null when it doesn't
+   * carry user claims), empty when the token is invalid.
+   */
+  Optional<AuthenticatedToken> authenticateToken(String token);
 }
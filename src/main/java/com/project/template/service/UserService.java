@@ -1,10 +1,14 @@
 package com.project.template.service;
 
+import java.util.List;
+
 import org.springframework.http.ResponseEntity;
 
 import com.project.template.dto.CreateUserDTO;
 import com.project.template.dto.LoginRequest;
 import com.project.template.dto.LoginResponse;
+import com.project.template.dto.TokenIntrospectionResult;
+import com.project.template.dto.UserSearchPage;
 import com.project.template.model.User;
 
 
@@ -16,6 +20,12 @@ public interface UserService {
 
     User findById(Long id);
 
+    List<User> findAllById(List<Long> ids);
+
+    UserSearchPage search(String query, String match, String after, int limit);
+
+    boolean isEmailAvailable(String email);
+
     User me();
 
     ResponseEntity<LoginResponse> login(LoginRequest loginRequest, String accessToken, String refreshToken);
@@ -23,4 +33,8 @@ public interface UserService {
     ResponseEntity<LoginResponse> refresh(String accessToken, String refreshToken);
 
     User getTokenUser(String token);
+
+    List<TokenIntrospectionResult> introspect(List<String> tokens);
+
+    ResponseEntity<LoginResponse> invalidateTokens();
 }
@@ -1,27 +1,40 @@
 package com.project.template.service.impl;
 
+import java.time.Duration;
+import java.util.Optional;
+
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import com.project.template.config.DataSourceRoutingContext;
 import com.project.template.dto.CustomUserDetails;
 import com.project.template.exception.ResourceNotFoundException;
 import com.project.template.model.User;
 import com.project.template.repository.UserRepository;
+import com.project.template.utils.SingleFlight;
 
 @Service
 public class CustomUserDetailsServiceImpl implements UserDetailsService {
     private final UserRepository userRepository;
+    private final DataSourceRoutingContext dataSourceRoutingContext;
+    private final SingleFlight<String, Optional<User>> userLookups = new SingleFlight<>(
+            UserServiceImpl.USER_LOOKUP_TIMEOUT, UserServiceImpl::detachedCopy);
 
-    public CustomUserDetailsServiceImpl(UserRepository userRepository) {
+    public CustomUserDetailsServiceImpl(UserRepository userRepository, DataSourceRoutingContext dataSourceRoutingContext) {
         this.userRepository = userRepository;
+        this.dataSourceRoutingContext = dataSourceRoutingContext;
     }
 
     @Override
+    @Transactional(readOnly = true)
     public UserDetails loadUserByUsername(String s) throws UsernameNotFoundException {
-        User user =
-                userRepository.findUserByEmail(s).orElseThrow(() -> new ResourceNotFoundException("User not found with email " + s));
+        User user = dataSourceRoutingContext
+                .read(s, () -> userLookups.execute(
+                        UserServiceImpl.userLookupKey(s), () -> userRepository.findUserByEmail(s)))
+                .orElseThrow(() -> new ResourceNotFoundException("User not found with email " + s));
         return new CustomUserDetails(user);
     }
 }
\ No newline at end of file
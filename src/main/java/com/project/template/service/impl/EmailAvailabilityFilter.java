@@ -0,0 +1,264 @@
+package com.project.template.service.impl;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Bloom filter over the normalized emails of every user, so availability checks
+ * for emails nobody has registered never reach the database. Filled at startup
+ * by streaming the users table, on every signup of this instance and by a
+ * scheduled refresh reading the rows added since (by any replica), so an email
+ * registered elsewhere is reported available for at most refreshIntervalMsec
+ * plus the refresh query. A "probably taken" answer still has to be confirmed
+ * with a query. Until the filter is loaded every email counts as probably
+ * taken.
+ */
+@Slf4j
+@Component
+public class EmailAvailabilityFilter implements MeterBinder {
+
+  static final String SELECT_EMAILS = "SELECT id, email FROM users";
+  static final String SELECT_EMAILS_AFTER =
+    "SELECT id, email FROM users WHERE id > ?";
+
+  /**
+   * Ids are handed out before commit, a row with a lower id can show up after
+   * a higher one was read. Re-reading this many ids back catches those, adding
+   * an email twice doesn't change the filter.
+   */
+  static final long REFRESH_LOOKBACK_IDS = 1000;
+
+  private static final int FETCH_SIZE = 1000;
+  private static final long SECOND_HASH_SEED = 0x9e3779b97f4a7c15L;
+
+  private final JdbcTemplate jdbcTemplate;
+  private final AtomicLongArray bits;
+  private final long bitCount;
+  private final int hashFunctions;
+  private final double targetFalsePositiveRate;
+  private final LongAdder insertions = new LongAdder();
+  private final LongAdder probableMatches = new LongAdder();
+  private final LongAdder falsePositives = new LongAdder();
+  private final AtomicLong lastSeenId = new AtomicLong();
+  private volatile boolean loaded;
+
+  public EmailAvailabilityFilter(
+    JdbcTemplate jdbcTemplate,
+    @Value("${emailFilter.expectedInsertions:1000000}") long expectedInsertions,
+    @Value("${emailFilter.falsePositiveRate:0.01}") double falsePositiveRate
+  ) {
+    if (expectedInsertions <= 0 || falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+      throw new IllegalArgumentException(
+        "emailFilter needs expectedInsertions > 0 and 0 < falsePositiveRate < 1"
+      );
+    }
+    this.jdbcTemplate = jdbcTemplate;
+    this.targetFalsePositiveRate = falsePositiveRate;
+    long optimalBits = (long) Math.ceil(
+      -expectedInsertions * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2))
+    );
+    int words = (int) Math.min(Integer.MAX_VALUE - 8, (optimalBits + 63) / 64);
+    this.bits = new AtomicLongArray(words);
+    this.bitCount = (long) words * 64;
+    this.hashFunctions = Math.max(
+      1,
+      (int) Math.round((double) bitCount / expectedInsertions * Math.log(2))
+    );
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void load() {
+    long start = System.currentTimeMillis();
+    try {
+      jdbcTemplate.query(
+        connection -> {
+          PreparedStatement statement = connection.prepareStatement(SELECT_EMAILS);
+          statement.setFetchSize(FETCH_SIZE);
+          return statement;
+        },
+        this::addRow
+      );
+      loaded = true;
+      log.info(
+        "Email filter loaded {} emails in {}ms",
+        insertions.sum(),
+        System.currentTimeMillis() - start
+      );
+    } catch (RuntimeException ex) {
+      log.warn(
+        "Could not load the email filter, availability checks will query: {}",
+        ex.getMessage()
+      );
+    }
+  }
+
+  /**
+   * Adds the users created since the last load or refresh, on this instance or
+   * any other.
+   */
+  @Scheduled(
+    initialDelayString = "${emailFilter.refreshIntervalMsec:5000}",
+    fixedDelayString = "${emailFilter.refreshIntervalMsec:5000}"
+  )
+  public void refresh() {
+    if (!loaded) return;
+    try {
+      jdbcTemplate.query(
+        SELECT_EMAILS_AFTER,
+        this::addRow,
+        Math.max(0, lastSeenId.get() - REFRESH_LOOKBACK_IDS)
+      );
+    } catch (RuntimeException ex) {
+      log.warn("Could not refresh the email filter: {}", ex.getMessage());
+    }
+  }
+
+  public boolean isLoaded() {
+    return loaded;
+  }
+
+  /**
+   * Only counted as an insertion when it set a new bit, so refreshes reading
+   * an email again don't skew the expected false positive rate.
+   */
+  public void add(String email) {
+    if (email == null) return;
+    long first = hash(normalize(email));
+    long second = mix(first ^ SECOND_HASH_SEED);
+    boolean changed = false;
+    for (int i = 1; i <= hashFunctions; i++) {
+      changed |= setBit(index(first + i * second));
+    }
+    if (changed) insertions.increment();
+  }
+
+  public boolean mightContain(String email) {
+    if (!loaded) return true;
+    long first = hash(normalize(email));
+    long second = mix(first ^ SECOND_HASH_SEED);
+    for (int i = 1; i <= hashFunctions; i++) {
+      if (!getBit(index(first + i * second))) return false;
+    }
+    probableMatches.increment();
+    return true;
+  }
+
+  /**
+   * A probable match the database didn't confirm.
+   */
+  public void recordFalsePositive() {
+    falsePositives.increment();
+  }
+
+  /**
+   * Rate expected from the current fill: (1 - e^(-kn/m))^k.
+   */
+  public double expectedFalsePositiveRate() {
+    return Math.pow(
+      1 - Math.exp(-hashFunctions * (double) insertions.sum() / bitCount),
+      hashFunctions
+    );
+  }
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    Gauge
+      .builder("email.filter.fpp", this, EmailAvailabilityFilter::expectedFalsePositiveRate)
+      .description("False positive rate expected from the current fill")
+      .register(registry);
+    Gauge
+      .builder("email.filter.fpp.target", () -> targetFalsePositiveRate)
+      .description("False positive rate the filter was sized for")
+      .register(registry);
+    Gauge
+      .builder("email.filter.bits", () -> bitCount)
+      .baseUnit("bits")
+      .register(registry);
+    FunctionCounter
+      .builder("email.filter.insertions", insertions, LongAdder::sum)
+      .register(registry);
+    FunctionCounter
+      .builder("email.filter.probable.matches", probableMatches, LongAdder::sum)
+      .description("Checks the filter sent on to the database")
+      .register(registry);
+    FunctionCounter
+      .builder("email.filter.false.positives", falsePositives, LongAdder::sum)
+      .description("Probable matches the database didn't confirm")
+      .register(registry);
+  }
+
+  /**
+   * Case and surrounding whitespace are dropped: a superset of the exact emails
+   * can only add false positives, never hide a taken email.
+   */
+  static String normalize(String email) {
+    return email.trim().toLowerCase(Locale.ROOT);
+  }
+
+  /**
+   * Double hashing combined in 64 bits, so filters past 2^31 bits reach all of
+   * them.
+   */
+  private long index(long combinedHash) {
+    return (combinedHash & Long.MAX_VALUE) % bitCount;
+  }
+
+  private void addRow(ResultSet resultSet) throws SQLException {
+    lastSeenId.accumulateAndGet(resultSet.getLong(1), Math::max);
+    add(resultSet.getString(2));
+  }
+
+  private boolean setBit(long index) {
+    int word = (int) (index >>> 6);
+    long mask = 1L << index;
+    long current;
+    do {
+      current = bits.get(word);
+      if ((current & mask) != 0) return false;
+    } while (!bits.compareAndSet(word, current, current | mask));
+    return true;
+  }
+
+  private boolean getBit(long index) {
+    return (bits.get((int) (index >>> 6)) & (1L << index)) != 0;
+  }
+
+  /**
+   * 64-bit FNV-1a over the UTF-8 bytes with a murmur finalizer. The second
+   * hash for double hashing is the first one reseeded and mixed again.
+   */
+  private static long hash(String value) {
+    long hash = 0xcbf29ce484222325L;
+    for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+      hash ^= b;
+      hash *= 0x100000001b3L;
+    }
+    return mix(hash);
+  }
+
+  private static long mix(long hash) {
+    hash ^= hash >>> 33;
+    hash *= 0xff51afd7ed558ccdL;
+    hash ^= hash >>> 33;
+    hash *= 0xc4ceb9fe1a85ec53L;
+    hash ^= hash >>> 33;
+    return hash;
+  }
+}
@@ -0,0 +1,143 @@
+package com.project.template.service.impl;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Write-behind login activity: logins only update an in-memory entry per user,
+ * a scheduled flush turns the pending entries into one batched UPDATE. Data is
+ * at most a flush interval stale, logins never wait on the database. When the
+ * buffer is full new users are dropped (and counted) rather than blocking.
+ */
+@Slf4j
+@Component
+public class LoginActivityRecorder implements MeterBinder {
+
+  static final String UPDATE_LOGIN_ACTIVITY =
+    "UPDATE users SET login_count = COALESCE(login_count, 0) + ?, " +
+    "last_login_at = CASE WHEN last_login_at IS NULL OR last_login_at < ? " +
+    "THEN ? ELSE last_login_at END WHERE id = ?";
+
+  private final JdbcTemplate jdbcTemplate;
+  private final int batchSize;
+  private final int maxPendingUsers;
+  private final int maxBatchesPerFlush;
+  private final Map<Long, Activity> pending = new ConcurrentHashMap<>();
+  private final LongAdder dropped = new LongAdder();
+
+  public LoginActivityRecorder(
+    JdbcTemplate jdbcTemplate,
+    @Value("${loginActivity.batchSize:500}") int batchSize,
+    @Value("${loginActivity.maxPendingUsers:100000}") int maxPendingUsers,
+    @Value("${loginActivity.maxBatchesPerFlush:20}") int maxBatchesPerFlush
+  ) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.batchSize = batchSize;
+    this.maxPendingUsers = maxPendingUsers;
+    this.maxBatchesPerFlush = maxBatchesPerFlush;
+  }
+
+  public void record(Long userId) {
+    LocalDateTime now = LocalDateTime.now();
+    if (pending.size() >= maxPendingUsers && !pending.containsKey(userId)) {
+      dropped.increment();
+      return;
+    }
+    pending.merge(userId, new Activity(1, now), Activity::plus);
+  }
+
+  /**
+   * Writes at most maxBatchesPerFlush batches per run, a bigger backlog is
+   * caught up over the following runs instead of holding the scheduler thread.
+   */
+  @Scheduled(fixedDelayString = "${loginActivity.flushIntervalMsec:2000}")
+  public void flush() {
+    for (int batch = 0; batch < maxBatchesPerFlush && !pending.isEmpty(); batch++) {
+      if (flushBatch() == 0) return;
+    }
+  }
+
+  @PreDestroy
+  public void drain() {
+    int flushed;
+    do {
+      flushed = flushBatch();
+    } while (flushed > 0 && !pending.isEmpty());
+  }
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    Gauge
+      .builder("login.activity.pending", pending, Map::size)
+      .description("Users with login activity waiting to be written")
+      .register(registry);
+    FunctionCounter
+      .builder("login.activity.dropped", dropped, LongAdder::sum)
+      .description("Logins not recorded because the buffer was full")
+      .register(registry);
+  }
+
+  private int flushBatch() {
+    List<Long> userIds = new ArrayList<>(batchSize);
+    List<Activity> activities = new ArrayList<>(batchSize);
+    for (Long userId : pending.keySet()) {
+      if (userIds.size() == batchSize) break;
+      Activity activity = pending.remove(userId);
+      if (activity == null) continue;
+      userIds.add(userId);
+      activities.add(activity);
+    }
+    if (userIds.isEmpty()) return 0;
+
+    List<Object[]> rows = new ArrayList<>(userIds.size());
+    for (int i = 0; i < userIds.size(); i++) {
+      Timestamp lastLoginAt = Timestamp.valueOf(activities.get(i).lastLoginAt());
+      rows.add(
+        new Object[] {
+          activities.get(i).count(),
+          lastLoginAt,
+          lastLoginAt,
+          userIds.get(i),
+        }
+      );
+    }
+    try {
+      jdbcTemplate.batchUpdate(UPDATE_LOGIN_ACTIVITY, rows);
+      return rows.size();
+    } catch (RuntimeException ex) {
+      log.warn(
+        "Could not write login activity of {} users, retrying later: {}",
+        rows.size(),
+        ex.getMessage()
+      );
+      for (int i = 0; i < userIds.size(); i++) {
+        pending.merge(userIds.get(i), activities.get(i), Activity::plus);
+      }
+      return 0;
+    }
+  }
+
+  record Activity(long count, LocalDateTime lastLoginAt) {
+    Activity plus(Activity other) {
+      return new Activity(
+        count + other.count,
+        lastLoginAt.isAfter(other.lastLoginAt) ? lastLoginAt : other.lastLoginAt
+      );
+    }
+  }
+}
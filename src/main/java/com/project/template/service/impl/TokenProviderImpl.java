@@ -1,25 +1,46 @@
 package com.project.template.service.impl;
 
+import com.project.template.config.JwtKeyRing;
+import com.project.template.dto.AuthenticatedToken;
+import com.project.template.dto.CustomUserDetails;
 import com.project.template.dto.Token;
+import com.project.template.dto.TokenClaims;
+import com.project.template.model.User;
+import com.project.template.profiling.TokenVerificationEvent;
 import com.project.template.service.TokenProvider;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.SignatureAlgorithm;
-import io.jsonwebtoken.security.Keys;
 import lombok.extern.slf4j.Slf4j;
 
+import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
+import java.util.Collection;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.AuthorityUtils;
 import org.springframework.stereotype.Service;
 
 @Service
 @Slf4j
 public class TokenProviderImpl implements TokenProvider {
 
-  @Value("${authentication.auth.tokenSecret}")
-  private String tokenSecret;
+  private static final String USER_ID_CLAIM = "uid";
+  private static final String NAME_CLAIM = "name";
+  private static final String TOKEN_VERSION_CLAIM = "ver";
+  private static final String AUTHORITIES_CLAIM = "auth";
+  /**
+   * Login time in epoch seconds (OpenID Connect's auth_time), kept across
+   * renewals. Older tokens without it fall back to iat.
+   */
+  private static final String AUTH_TIME_CLAIM = "auth_time";
 
   @Value("${authentication.auth.tokenExpirationMsec}")
   private Long tokenExpirationMsec;
@@ -27,72 +48,90 @@ public class TokenProviderImpl implements TokenProvider {
   @Value("${authentication.auth.refreshTokenExpirationMsec}")
   private Long refreshTokenExpirationMsec;
 
+  private final JwtKeyRing jwtKeyRing;
+  private final JwtParser jwtParser;
+
+  public TokenProviderImpl(JwtKeyRing jwtKeyRing) {
+    this.jwtKeyRing = jwtKeyRing;
+    this.jwtParser =
+      Jwts.parserBuilder().setSigningKeyResolver(jwtKeyRing).build();
+  }
+
   @Override
   public Token generateAccessToken(String subject) {
-    Date now = new Date();
-    long duration = now.getTime() + tokenExpirationMsec;
-    Date expiryDate = new Date(duration);
-    String token = Jwts
-      .builder()
-      .setSubject(subject)
-      .setIssuedAt(now)
-      .setExpiration(expiryDate)
-      .signWith(
-        Keys.hmacShaKeyFor(tokenSecret.getBytes()),
-        SignatureAlgorithm.HS512
-      )
-      .compact();
-    return new Token(
+    return buildToken(
       Token.TokenType.ACCESS,
-      token,
-      duration,
-      LocalDateTime.ofInstant(expiryDate.toInstant(), ZoneId.systemDefault())
+      subject,
+      null,
+      tokenExpirationMsec,
+      null
     );
   }
 
   @Override
   public Token generateRefreshToken(String subject) {
-    Date now = new Date();
-    long duration = now.getTime() + refreshTokenExpirationMsec;
-    Date expiryDate = new Date(duration);
-    String token = Jwts
-      .builder()
-      .setSubject(subject)
-      .setIssuedAt(now)
-      .setExpiration(expiryDate)
-      .signWith(
-        Keys.hmacShaKeyFor(tokenSecret.getBytes()),
-        SignatureAlgorithm.HS512
-      )
-      .compact();
-    return new Token(
+    return buildToken(
       Token.TokenType.REFRESH,
-      token,
-      duration,
-      LocalDateTime.ofInstant(expiryDate.toInstant(), ZoneId.systemDefault())
+      subject,
+      null,
+      refreshTokenExpirationMsec,
+      null
+    );
+  }
+
+  @Override
+  public Token generateAccessToken(User user) {
+    return buildToken(
+      Token.TokenType.ACCESS,
+      user.getEmail(),
+      userClaims(user),
+      tokenExpirationMsec,
+      null
+    );
+  }
+
+  @Override
+  public Token generateRefreshToken(User user) {
+    return buildToken(
+      Token.TokenType.REFRESH,
+      user.getEmail(),
+      userClaims(user),
+      refreshTokenExpirationMsec,
+      null
+    );
+  }
+
+  @Override
+  public Token generateAccessToken(String subject, LocalDateTime authTime) {
+    return buildToken(
+      Token.TokenType.ACCESS,
+      subject,
+      null,
+      tokenExpirationMsec,
+      authTime
+    );
+  }
+
+  @Override
+  public Token generateAccessToken(User user, LocalDateTime authTime) {
+    return buildToken(
+      Token.TokenType.ACCESS,
+      user.getEmail(),
+      userClaims(user),
+      tokenExpirationMsec,
+      authTime
     );
   }
 
   @Override
   public String getUsernameFromToken(String token) {
-    log.info("Getting username from token: {}", token);
-    Claims claims = Jwts
-      .parserBuilder()
-      .setSigningKey(Keys.hmacShaKeyFor(tokenSecret.getBytes()))
-      .build()
-      .parseClaimsJws(token)
-      .getBody();
+    Claims claims = jwtParser.parseClaimsJws(token).getBody();
     return claims.getSubject();
   }
 
   @Override
   public LocalDateTime getExpiryDateFromToken(String token) {
-    Claims claims = Jwts
-      .parserBuilder()
-      .setSigningKey(Keys.hmacShaKeyFor(tokenSecret.getBytes()))
-      .build()
-      .parseClaimsJws(token)
-      .getBody();
+    Claims claims = jwtParser.parseClaimsJws(token).getBody();
     return LocalDateTime.ofInstant(
       claims.getExpiration().toInstant(),
       ZoneId.systemDefault()
@@ -102,16 +141,189 @@ public class TokenProviderImpl implements TokenProvider {
   @Override
   public boolean validateToken(String token) {
     if (token == null) return false;
+    TokenVerificationEvent event = new TokenVerificationEvent();
+    event.begin();
     try {
-      Jwts
-        .parserBuilder()
-        .setSigningKey(Keys.hmacShaKeyFor(tokenSecret.getBytes()))
-        .build()
-        .parse(token);
+      jwtParser.parse(token);
+      event.finish("validate", true);
       return true;
     } catch (Exception ex) {
-      ex.printStackTrace();
+      log.debug("Rejected token: {}", ex.getMessage());
     }
+    event.finish("validate", false);
     return false;
   }
+
+  @Override
+  public Optional<String> findUsernameFromToken(String token) {
+    if (token == null) return Optional.empty();
+    try {
+      return Optional.ofNullable(
+        jwtParser.parseClaimsJws(token).getBody().getSubject()
+      );
+    } catch (Exception ex) {
+      log.debug("Rejected token: {}", ex.getMessage());
+      return Optional.empty();
+    }
+  }
+
+  @Override
+  public Optional<CustomUserDetails> getUserDetailsFromToken(String token) {
+    if (token == null) return Optional.empty();
+    TokenVerificationEvent event = new TokenVerificationEvent();
+    event.begin();
+    Claims claims;
+    try {
+      claims = jwtParser.parseClaimsJws(token).getBody();
+    } catch (Exception ex) {
+      log.debug("Rejected token: {}", ex.getMessage());
+      event.finish("claims", false);
+      return Optional.empty();
+    }
+    event.finish("claims", true);
+    return Optional.ofNullable(userDetails(claims));
+  }
+
+  @Override
+  public Optional<TokenClaims> findTokenClaims(String token) {
+    if (token == null) return Optional.empty();
+    Claims claims;
+    try {
+      claims = jwtParser.parseClaimsJws(token).getBody();
+    } catch (Exception ex) {
+      log.debug("Rejected token: {}", ex.getMessage());
+      return Optional.empty();
+    }
+    Number tokenVersion = claims.get(TOKEN_VERSION_CLAIM, Number.class);
+    return Optional.of(
+      new TokenClaims(
+        claims.getSubject(),
+        tokenVersion == null ? null : tokenVersion.intValue(),
+        LocalDateTime.ofInstant(
+          claims.getExpiration().toInstant(),
+          ZoneId.systemDefault()
+        )
+      )
+    );
+  }
+
+  @Override
+  public Optional<AuthenticatedToken> authenticateToken(String token) {
+    if (token == null) return Optional.empty();
+    TokenVerificationEvent event = new TokenVerificationEvent();
+    event.begin();
+    Claims claims;
+    try {
+      claims = jwtParser.parseClaimsJws(token).getBody();
+    } catch (Exception ex) {
+      log.debug("Rejected token: {}", ex.getMessage());
+      event.finish("authenticate", false);
+      return Optional.empty();
+    }
+    event.finish("authenticate", true);
+    return Optional.of(
+      new AuthenticatedToken(
+        claims.getSubject(),
+        userDetails(claims),
+        LocalDateTime.ofInstant(
+          claims.getExpiration().toInstant(),
+          ZoneId.systemDefault()
+        ),
+        authTime(claims)
+      )
+    );
+  }
+
+  /**
+   * Null when the token carries neither auth_time nor iat.
+   */
+  private LocalDateTime authTime(Claims claims) {
+    Number authTime = claims.get(AUTH_TIME_CLAIM, Number.class);
+    if (authTime != null) return LocalDateTime.ofInstant(
+      Instant.ofEpochSecond(authTime.longValue()),
+      ZoneId.systemDefault()
+    );
+    if (claims.getIssuedAt() == null) return null;
+    return LocalDateTime.ofInstant(
+      claims.getIssuedAt().toInstant(),
+      ZoneId.systemDefault()
+    );
+  }
+
+  /**
+   * Null when the claims don't carry the user id.
+   */
+  private CustomUserDetails userDetails(Claims claims) {
+    Number userId = claims.get(USER_ID_CLAIM, Number.class);
+    if (userId == null) return null;
+
+    Number tokenVersion = claims.get(TOKEN_VERSION_CLAIM, Number.class);
+    User user = User
+      .builder()
+      .id(userId.longValue())
+      .email(claims.getSubject())
+      .name(claims.get(NAME_CLAIM, String.class))
+      .tokenVersion(tokenVersion == null ? 0 : tokenVersion.intValue())
+      .build();
+    List<?> authorities = claims.get(AUTHORITIES_CLAIM, List.class);
+    if (authorities == null) return new CustomUserDetails(user);
+    return new CustomUserDetails(
+      user,
+      AuthorityUtils.createAuthorityList(
+        authorities.stream().map(String::valueOf).toArray(String[]::new)
+      )
+    );
+  }
+
+  private Map<String, Object> userClaims(User user) {
+    Map<String, Object> claims = new HashMap<>();
+    claims.put(USER_ID_CLAIM, user.getId());
+    claims.put(NAME_CLAIM, user.getName());
+    claims.put(TOKEN_VERSION_CLAIM, user.getTokenVersion());
+    Collection<? extends GrantedAuthority> authorities = new CustomUserDetails(
+      user
+    )
+      .getAuthorities();
+    claims.put(
+      AUTHORITIES_CLAIM,
+      AuthorityUtils.authorityListToSet(authorities)
+    );
+    return claims;
+  }
+
+  private Token buildToken(
+    Token.TokenType tokenType,
+    String subject,
+    Map<String, Object> claims,
+    Long expirationMsec,
+    LocalDateTime authTime
+  ) {
+    Date now = new Date();
+    long duration = now.getTime() + expirationMsec;
+    Date expiryDate = new Date(duration);
+    var builder = Jwts.builder();
+    if (jwtKeyRing.getActiveKeyId() != null) builder.setHeaderParam(
+      JwsHeader.KEY_ID,
+      jwtKeyRing.getActiveKeyId()
+    );
+    if (claims != null) builder.addClaims(claims);
+    builder.claim(
+      AUTH_TIME_CLAIM,
+      authTime == null
+        ? now.getTime() / 1000
+        : authTime.atZone(ZoneId.systemDefault()).toEpochSecond()
+    );
+    String token = builder
+      .setSubject(subject)
+      .setIssuedAt(now)
+      .setExpiration(expiryDate)
+      .signWith(jwtKeyRing.getSigningKey(), jwtKeyRing.getSignatureAlgorithm())
+      .compact();
+    return new Token(
+      tokenType,
+      token,
+      duration,
+      LocalDateTime.ofInstant(expiryDate.toInstant(), ZoneId.systemDefault())
+    );
+  }
 }
@@ -3,30 +3,55 @@ package com.project.template.service.impl;
 import java.net.URLDecoder;
 import java.nio.charset.StandardCharsets;
 import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import com.project.template.config.DataSourceRoutingContext;
+import com.project.template.config.ExecutorConfig;
 import com.project.template.dto.CreateUserDTO;
 import com.project.template.dto.CustomUserDetails;
 import com.project.template.dto.LoginRequest;
 import com.project.template.dto.LoginResponse;
 import com.project.template.dto.Token;
+import com.project.template.dto.TokenClaims;
+import com.project.template.dto.TokenIntrospectionResult;
+import com.project.template.dto.UserSearchPage;
+import com.project.template.dto.UserSearchResult;
 import com.project.template.exception.BadRequestException;
 import com.project.template.exception.EntityExistsException;
 import com.project.template.exception.ResourceNotFoundException;
+import com.project.template.exception.SecurityCipherDecodeException;
 import com.project.template.model.User;
+import com.project.template.profiling.PasswordHashEvent;
 import com.project.template.repository.UserRepository;
 import com.project.template.service.TokenProvider;
 import com.project.template.service.UserService;
 import com.project.template.utils.CookieUtil;
+import com.project.template.utils.NegativeLookupCache;
 import com.project.template.utils.SecurityCipher;
+import com.project.template.utils.SingleFlight;
+import com.project.template.utils.TokenVersionRegistry;
 
 import lombok.extern.slf4j.Slf4j;
 
@@ -36,75 +61,154 @@ public class UserServiceImpl implements UserService {
 
   private static final int PASSWORD_STRENGTH = 10;
 
+  /**
+   * How long concurrent lookups of the same user wait for the in-flight query.
+   */
+  static final Duration USER_LOOKUP_TIMEOUT = Duration.ofSeconds(5);
+
+  /**
+   * Single-flight key for a user lookup: only callers routed to the same
+   * database share a load, so a caller pinned to the primary after a write
+   * never gets a replica's stale row.
+   */
+  static String userLookupKey(Object key) {
+    return (DataSourceRoutingContext.routesToPrimary() ? "primary:" : "replica:") + key;
+  }
+
+  /**
+   * The loading caller's entity belongs to its persistence context, the
+   * callers sharing the load get a detached copy each.
+   */
+  static Optional<User> detachedCopy(Optional<User> user) {
+    return user.map(loaded -> loaded.toBuilder().build());
+  }
+
+  static final int MAX_SEARCH_LIMIT = 100;
+  static final int MAX_SEARCH_QUERY_LENGTH = 100;
+  /**
+   * Shorter substrings can't use the trigram indexes.
+   */
+  static final int MIN_CONTAINS_QUERY_LENGTH = 3;
+
   private final UserRepository userRepository;
 
   private final TokenProvider tokenProvider;
   private final PasswordEncoder passwordEncoder;
   private final CookieUtil cookieUtil;
+  private final TokenVersionRegistry tokenVersionRegistry;
+  private final Executor authTaskExecutor;
+  private final DataSourceRoutingContext dataSourceRoutingContext;
+  private final NegativeLookupCache negativeLookupCache;
+  private final LoginActivityRecorder loginActivityRecorder;
+  private final EmailAvailabilityFilter emailAvailabilityFilter;
+  private final SingleFlight<String, Optional<User>> userLookups = new SingleFlight<>(USER_LOOKUP_TIMEOUT, UserServiceImpl::detachedCopy);
+
+  @Value("${authentication.auth.reissueWindowMsec:600000}")
+  private long reissueWindowMsec;
 
   public UserServiceImpl(
       UserRepository userRepository,
       TokenProvider tokenProvider,
       CookieUtil cookieUtil,
-      PasswordEncoder passwordEncoder) {
+      PasswordEncoder passwordEncoder,
+      TokenVersionRegistry tokenVersionRegistry,
+      @Qualifier(ExecutorConfig.AUTH_TASK_EXECUTOR) Executor authTaskExecutor,
+      DataSourceRoutingContext dataSourceRoutingContext,
+      NegativeLookupCache negativeLookupCache,
+      LoginActivityRecorder loginActivityRecorder,
+      EmailAvailabilityFilter emailAvailabilityFilter) {
     this.userRepository = userRepository;
     this.tokenProvider = tokenProvider;
     this.cookieUtil = cookieUtil;
     this.passwordEncoder = passwordEncoder;
+    this.tokenVersionRegistry = tokenVersionRegistry;
+    this.authTaskExecutor = authTaskExecutor;
+    this.dataSourceRoutingContext = dataSourceRoutingContext;
+    this.negativeLookupCache = negativeLookupCache;
+    this.loginActivityRecorder = loginActivityRecorder;
+    this.emailAvailabilityFilter = emailAvailabilityFilter;
   }
 
+  /**
+   * A single insert decides whether the email is taken, concurrent signups with
+   * the same email can't both pass a check and race on the unique constraint.
+   */
   @Override
   public User create(CreateUserDTO userDTO) {
-    Optional<User> userOptional = this.userRepository.findUserByEmail(userDTO.getEmail());
-    if (userOptional.isPresent())
-      throw new EntityExistsException(
-          "User with email: " + userDTO.getEmail() + " already exists.");
     User user = new User();
     BeanUtils.copyProperties(userDTO, user);
     BCryptPasswordEncoder bCryptPasswordEncoder = new BCryptPasswordEncoder(
         PASSWORD_STRENGTH,
         new SecureRandom());
+    PasswordHashEvent hashEvent = new PasswordHashEvent();
+    hashEvent.begin();
     String encodedPassword = bCryptPasswordEncoder.encode(user.getPassword());
+    hashEvent.finish("encode", true);
     user.setPassword(encodedPassword);
-    log.info("Creating user with email {}", userDTO.getEmail());
-    return this.userRepository.save(user);
+    log.debug("Creating user with email {}", userDTO.getEmail());
+    User createdUser = this.userRepository.insertIfAbsent(user)
+        .orElseThrow(() -> new EntityExistsException(
+            "User with email: " + userDTO.getEmail() + " already exists."));
+    this.negativeLookupCache.forgetUnknownEmail(createdUser.getEmail());
+    this.emailAvailabilityFilter.add(createdUser.getEmail());
+    this.dataSourceRoutingContext.markWritten(createdUser.getEmail(), String.valueOf(createdUser.getId()));
+    return createdUser;
+  }
+
+  /**
+   * Emails the filter has never seen are answered without a query. Users
+   * created on other instances since this one started aren't in the filter, the
+   * signup itself still rejects those.
+   */
+  @Override
+  public boolean isEmailAvailable(String email) {
+    if (email == null || email.isBlank())
+      throw new BadRequestException("Email must not be blank.");
+    if (!this.emailAvailabilityFilter.mightContain(email))
+      return true;
+    // straight to the database: the negative cache may not know about a signup on another replica
+    boolean taken = this.dataSourceRoutingContext.read(email, () -> userRepository.findUserByEmail(email)).isPresent();
+    if (!taken && this.emailAvailabilityFilter.isLoaded())
+      this.emailAvailabilityFilter.recordFalsePositive();
+    return !taken;
   }
 
+  /**
+   * The cookies are decrypted and verified on the auth executor while this
+   * thread loads the user and checks the password. Tokens that still belong to
+   * the user and don't expire within the reissue window are kept as they are.
+   */
   @Override
   public ResponseEntity<LoginResponse> login(
       LoginRequest loginRequest,
       String encryptedAccessToken,
       String encryptedRefreshToken) {
-    String accessToken = SecurityCipher.decrypt(encryptedAccessToken);
-    String refreshToken = SecurityCipher.decrypt(encryptedRefreshToken);
+    CompletableFuture<Optional<TokenClaims>> accessTokenClaims = CompletableFuture.supplyAsync(
+        () -> tokenProvider.findTokenClaims(SecurityCipher.decrypt(encryptedAccessToken)),
+        authTaskExecutor);
+    CompletableFuture<Optional<TokenClaims>> refreshTokenClaims = CompletableFuture.supplyAsync(
+        () -> tokenProvider.findTokenClaims(SecurityCipher.decrypt(encryptedRefreshToken)),
+        authTaskExecutor);
     String email = loginRequest.getEmail();
     User user = this.findByEmail(email);
-    if (!passwordEncoder.matches(loginRequest.getPassword(), user.getPassword()))
+    PasswordHashEvent hashEvent = new PasswordHashEvent();
+    hashEvent.begin();
+    boolean passwordMatches = passwordEncoder.matches(loginRequest.getPassword(), user.getPassword());
+    hashEvent.finish("matches", passwordMatches);
+    if (!passwordMatches)
       throw new BadRequestException("Password doesn't match!");
-    var accessTokenValid = tokenProvider.validateToken(accessToken);
-    var refreshTokenValid = tokenProvider.validateToken(refreshToken);
+    this.loginActivityRecorder.record(user.getId());
+    boolean reissueAccessToken = !isReusable(accessTokenClaims.join(), user);
+    boolean reissueRefreshToken = !isReusable(refreshTokenClaims.join(), user);
 
     HttpHeaders responseHeaders = new HttpHeaders();
-    Token newAccessToken;
-    Token newRefreshToken;
-    if (!accessTokenValid && !refreshTokenValid) {
-      newAccessToken = tokenProvider.generateAccessToken(user.getEmail());
-      newRefreshToken = tokenProvider.generateRefreshToken(user.getEmail());
-      addAccessTokenCookie(responseHeaders, newAccessToken);
-      addRefreshTokenCookie(responseHeaders, newRefreshToken);
-    }
-
-    if (!accessTokenValid && refreshTokenValid) {
-      newAccessToken = tokenProvider.generateAccessToken(user.getEmail());
-      addAccessTokenCookie(responseHeaders, newAccessToken);
-    }
-
-    if (accessTokenValid && refreshTokenValid) {
-      newAccessToken = tokenProvider.generateAccessToken(user.getEmail());
-      newRefreshToken = tokenProvider.generateRefreshToken(user.getEmail());
-      addAccessTokenCookie(responseHeaders, newAccessToken);
-      addRefreshTokenCookie(responseHeaders, newRefreshToken);
-    }
+    CompletableFuture<Token> newRefreshToken = reissueRefreshToken
+        ? CompletableFuture.supplyAsync(() -> tokenProvider.generateRefreshToken(user), authTaskExecutor)
+        : null;
+    if (reissueAccessToken)
+      addAccessTokenCookie(responseHeaders, tokenProvider.generateAccessToken(user));
+    if (newRefreshToken != null)
+      addRefreshTokenCookie(responseHeaders, newRefreshToken.join());
 
     LoginResponse loginResponse = new LoginResponse(
         LoginResponse.SuccessFailure.SUCCESS,
@@ -116,14 +220,20 @@ public class UserServiceImpl implements UserService {
   public ResponseEntity<LoginResponse> refresh(
       String encryptedAccessToken,
       String encryptedRefreshToken) {
+    if (this.negativeLookupCache.isRejectedToken(encryptedRefreshToken))
+      throw new BadRequestException(
+          "Refresh Token is invalid!");
     String refreshToken = SecurityCipher.decrypt(encryptedRefreshToken);
     var refreshTokenValid = tokenProvider.validateToken(refreshToken);
-    if (!refreshTokenValid)
+    if (!refreshTokenValid) {
+      this.negativeLookupCache.rememberRejectedToken(encryptedRefreshToken);
       throw new BadRequestException(
           "Refresh Token is invalid!");
+    }
 
     String currentUserEmail = tokenProvider.getUsernameFromToken(refreshToken);
-    Token newAccessToken = tokenProvider.generateAccessToken(currentUserEmail);
+    Token newAccessToken = tokenProvider.generateAccessToken(
+        this.findCurrentVersionUser(currentUserEmail, refreshToken));
     HttpHeaders responseHeaders = new HttpHeaders();
     responseHeaders.add(
         HttpHeaders.SET_COOKIE,
@@ -140,25 +250,130 @@ public class UserServiceImpl implements UserService {
   }
 
   @Override
+  @Transactional(readOnly = true)
   public User getTokenUser(String encryptedToken) {
-    String token = SecurityCipher.decrypt(
-        URLDecoder.decode(encryptedToken, StandardCharsets.UTF_8),
-        true);
+    if (this.negativeLookupCache.isRejectedToken(encryptedToken))
+      throw new BadRequestException("Token invalid!");
+    String token;
+    try {
+      token = SecurityCipher.decrypt(
+          URLDecoder.decode(encryptedToken, StandardCharsets.UTF_8),
+          true);
+    } catch (SecurityCipherDecodeException ex) {
+      this.negativeLookupCache.rememberRejectedToken(encryptedToken);
+      throw ex;
+    }
 
     boolean isTokenValid = this.tokenProvider.validateToken(token);
-    if (!isTokenValid)
+    if (!isTokenValid) {
+      this.negativeLookupCache.rememberRejectedToken(encryptedToken);
       throw new BadRequestException("Token invalid!");
-    var tokenUsername = this.tokenProvider.getUsernameFromToken(token);
-    return this.userRepository.findUserByEmail(tokenUsername)
+    }
+    TokenClaims claims = this.tokenProvider.findTokenClaims(token)
+        .orElseThrow(() -> new BadRequestException("Token invalid!"));
+    User user = this.findUserByEmail(claims.getSubject())
         .orElseThrow(() -> new ResourceNotFoundException("User not found!"));
+    if (!isCurrentVersion(claims, user))
+      throw new BadRequestException("Token invalid!");
+    return user;
   }
 
   @Override
+  @Transactional(readOnly = true)
+  public List<TokenIntrospectionResult> introspect(List<String> encryptedTokens) {
+    List<CompletableFuture<Optional<TokenClaims>>> verifications = encryptedTokens.stream()
+        .map(encryptedToken -> CompletableFuture.supplyAsync(
+            () -> this.verifyIntrospectedToken(encryptedToken),
+            authTaskExecutor))
+        .toList();
+    List<Optional<TokenClaims>> tokenClaims = verifications.stream().map(CompletableFuture::join).toList();
+
+    List<String> emails = tokenClaims.stream().flatMap(Optional::stream).map(TokenClaims::getSubject).distinct()
+        .toList();
+    Map<String, User> usersByEmail = emails.isEmpty()
+        ? Map.of()
+        : this.userRepository.findAllByEmailIn(emails).stream()
+            .collect(Collectors.toMap(User::getEmail, Function.identity()));
+
+    return tokenClaims.stream()
+        .map(verified -> verified
+            .map(claims -> Optional.ofNullable(usersByEmail.get(claims.getSubject()))
+                .map(user -> isCurrentVersion(claims, user)
+                    ? TokenIntrospectionResult.active(user)
+                    : TokenIntrospectionResult.inactive("Token invalid!"))
+                .orElseGet(() -> TokenIntrospectionResult.inactive("User not found!")))
+            .orElseGet(() -> TokenIntrospectionResult.inactive("Token invalid!")))
+        .toList();
+  }
+
+  @Override
+  @Transactional(readOnly = true)
   public User findById(Long id) {
-    return this.userRepository.findById(id)
+    return this.dataSourceRoutingContext
+        .read(String.valueOf(id), () -> this.userLookups.execute(userLookupKey(id), () -> this.userRepository.findById(id)))
         .orElseThrow(() -> new ResourceNotFoundException("User not found."));
   }
 
+  /**
+   * Unknown ids are left out.
+   */
+  @Override
+  @Transactional(readOnly = true)
+  public List<User> findAllById(List<Long> ids) {
+    return this.userRepository.findAllById(ids);
+  }
+
+  @Override
+  @Transactional(readOnly = true)
+  public UserSearchPage search(String query, String match, String after, int limit) {
+    String normalizedQuery = query == null ? "" : query.trim().toLowerCase(Locale.ROOT);
+    if (normalizedQuery.isEmpty() || normalizedQuery.length() > MAX_SEARCH_QUERY_LENGTH)
+      throw new BadRequestException("Query must have between 1 and " + MAX_SEARCH_QUERY_LENGTH + " characters.");
+    if (limit < 1 || limit > MAX_SEARCH_LIMIT)
+      throw new BadRequestException("Limit must be between 1 and " + MAX_SEARCH_LIMIT + ".");
+
+    boolean prefix;
+    if ("prefix".equals(match)) {
+      prefix = true;
+    } else if ("contains".equals(match)) {
+      if (normalizedQuery.length() < MIN_CONTAINS_QUERY_LENGTH)
+        throw new BadRequestException(
+            "Substring search needs at least " + MIN_CONTAINS_QUERY_LENGTH + " characters.");
+      prefix = false;
+    } else {
+      throw new BadRequestException("Match must be prefix or contains.");
+    }
+
+    String afterKey = "";
+    long afterId = Long.MIN_VALUE;
+    if (after != null) {
+      try {
+        String cursor = new String(Base64.getUrlDecoder().decode(after), StandardCharsets.UTF_8);
+        int separator = cursor.indexOf(':');
+        afterId = Long.parseLong(cursor.substring(0, separator));
+        afterKey = cursor.substring(separator + 1);
+      } catch (IllegalArgumentException | IndexOutOfBoundsException ex) {
+        throw new BadRequestException("Invalid cursor.");
+      }
+    }
+
+    // one row more than asked tells whether there is a next page
+    List<UserSearchResult> users = this.userRepository.search(
+        normalizedQuery, prefix, afterKey, afterId, limit + 1);
+    if (users.size() <= limit)
+      return new UserSearchPage(users, null);
+    List<UserSearchResult> page = users.subList(0, limit);
+    return new UserSearchPage(page, searchCursor(page.get(limit - 1)));
+  }
+
+  /**
+   * Opaque to clients: the id and search key of the last result.
+   */
+  static String searchCursor(UserSearchResult last) {
+    return Base64.getUrlEncoder().withoutPadding()
+        .encodeToString((last.getId() + ":" + last.getSearchKey()).getBytes(StandardCharsets.UTF_8));
+  }
+
   @Override
   public User me() {
     CustomUserDetails currentUser = (CustomUserDetails) SecurityContextHolder.getContext().getAuthentication()
@@ -166,12 +381,82 @@ public class UserServiceImpl implements UserService {
     return currentUser.getUser();
   }
 
+  @Override
+  @Transactional
+  public ResponseEntity<LoginResponse> invalidateTokens() {
+    // loaded in this transaction, findById may hand out an instance shared with
+    // concurrent readers
+    User user = this.userRepository.findById(this.me().getId())
+        .orElseThrow(() -> new ResourceNotFoundException("User not found."));
+    user.setTokenVersion(user.getTokenVersion() + 1);
+    this.userRepository.save(user);
+    this.dataSourceRoutingContext.markWritten(user.getEmail(), String.valueOf(user.getId()));
+    this.tokenVersionRegistry.invalidateBelow(user.getId(), user.getTokenVersion());
+
+    HttpHeaders responseHeaders = new HttpHeaders();
+    responseHeaders.add(HttpHeaders.SET_COOKIE, cookieUtil.deleteAccessTokenCookie().toString());
+    responseHeaders.add(HttpHeaders.SET_COOKIE, cookieUtil.deleteRefreshTokenCookie().toString());
+    LoginResponse loginResponse = new LoginResponse(
+        LoginResponse.SuccessFailure.SUCCESS,
+        "Tokens invalidated.");
+    return ResponseEntity.ok().headers(responseHeaders).body(loginResponse);
+  }
+
+  /**
+   * Access tokens are only reissued while the refresh token still matches the
+   * user's current token version, refresh tokens without claims count as
+   * version 0.
+   */
+  private User findCurrentVersionUser(String email, String refreshToken) {
+    User user = this.findByEmail(email);
+    int refreshTokenVersion = tokenProvider.getUserDetailsFromToken(refreshToken)
+        .map(userDetails -> userDetails.getUser().getTokenVersion())
+        .orElse(0);
+    if (refreshTokenVersion != user.getTokenVersion())
+      throw new BadRequestException("Refresh Token is invalid!");
+    return user;
+  }
+
+  /**
+   * Tokens without a version claim count as version 0.
+   */
+  private static boolean isCurrentVersion(TokenClaims claims, User user) {
+    int tokenVersion = claims.getTokenVersion() == null ? 0 : claims.getTokenVersion();
+    return tokenVersion == user.getTokenVersion();
+  }
+
+  private boolean isReusable(Optional<TokenClaims> tokenClaims, User user) {
+    LocalDateTime reissueAfter = LocalDateTime.now().plus(Duration.ofMillis(reissueWindowMsec));
+    return tokenClaims
+        .filter(claims -> user.getEmail().equals(claims.getSubject()))
+        .filter(claims -> Objects.equals(user.getTokenVersion(), claims.getTokenVersion()))
+        .filter(claims -> claims.getExpiryDate().isAfter(reissueAfter))
+        .isPresent();
+  }
+
+  private Optional<TokenClaims> verifyIntrospectedToken(String encryptedToken) {
+    if (this.negativeLookupCache.isRejectedToken(encryptedToken))
+      return Optional.empty();
+    Optional<TokenClaims> claims = this.tokenProvider.findTokenClaims(SecurityCipher.decrypt(encryptedToken));
+    if (claims.isEmpty())
+      this.negativeLookupCache.rememberRejectedToken(encryptedToken);
+    return claims;
+  }
+
   private User findByEmail(String email) {
-    return userRepository
-        .findUserByEmail(email)
+    return this.findUserByEmail(email)
         .orElseThrow(() -> new ResourceNotFoundException("User not found" + " with email " + email));
   }
 
+  private Optional<User> findUserByEmail(String email) {
+    if (this.negativeLookupCache.isUnknownEmail(email))
+      return Optional.empty();
+    Optional<User> user = this.dataSourceRoutingContext.read(email, () -> userRepository.findUserByEmail(email));
+    if (user.isEmpty())
+      this.negativeLookupCache.rememberUnknownEmail(email);
+    return user;
+  }
+
   private void addAccessTokenCookie(HttpHeaders httpHeaders, Token token) {
     httpHeaders.add(
         HttpHeaders.SET_COOKIE,
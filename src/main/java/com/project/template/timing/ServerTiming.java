@@ -0,0 +1,76 @@
+package com.project.template.timing;
+
+/**
+ * Entry point for the stage measurements. Call sites bracket a stage with
+ * start() and stop(), both return right away unless the current request was
+ * selected by ServerTimingFilter, so the instrumentation stays in place when
+ * the mode is off.
+ */
+public final class ServerTiming {
+
+  public enum Stage {
+    COOKIE("cookie", "Cookie decryption"),
+    JWT("jwt", "JWT verification"),
+    PRINCIPAL("principal", "Principal lookup"),
+    HANDLER("handler", "Controller"),
+    SERIALIZATION("serialization", "Response serialization");
+
+    private final String metricName;
+    private final String description;
+
+    Stage(String metricName, String description) {
+      this.metricName = metricName;
+      this.description = description;
+    }
+
+    public String metricName() {
+      return metricName;
+    }
+
+    public String description() {
+      return description;
+    }
+  }
+
+  private static final ThreadLocal<ServerTimingRecorder> RECORDER = ThreadLocal.withInitial(
+    ServerTimingRecorder::new
+  );
+
+  private static volatile boolean enabled;
+
+  private ServerTiming() {}
+
+  /**
+   * Flipped once by a filter that may record requests, never back: the flag
+   * only spares the thread-local lookup while the mode is off.
+   */
+  static void enable() {
+    enabled = true;
+  }
+
+  /**
+   * 0 when the request isn't recorded, pass it to stop() as it is.
+   */
+  public static long start() {
+    if (!enabled) return 0L;
+    return RECORDER.get().isActive() ? System.nanoTime() : 0L;
+  }
+
+  public static void stop(Stage stage, long start) {
+    if (start == 0L) return;
+    RECORDER.get().add(stage, System.nanoTime() - start);
+  }
+
+  /**
+   * Only set while ServerTimingFilter records the request on this thread.
+   */
+  static ServerTimingRecorder activeRecorder() {
+    if (!enabled) return null;
+    ServerTimingRecorder recorder = RECORDER.get();
+    return recorder.isActive() ? recorder : null;
+  }
+
+  static ServerTimingRecorder threadRecorder() {
+    return RECORDER.get();
+  }
+}
@@ -0,0 +1,104 @@
+package com.project.template.timing;
+
+import com.project.template.timing.ServerTiming.Stage;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.MethodParameter;
+import org.springframework.core.Ordered;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+/**
+ * The filter wraps the security chain so the auth stages are recorded, the
+ * interceptor and the body advice split the MVC part into controller and
+ * serialization time.
+ */
+@Configuration
+@EnableConfigurationProperties(ServerTimingProperties.class)
+public class ServerTimingConfig implements WebMvcConfigurer {
+
+  @Bean
+  FilterRegistrationBean<ServerTimingFilter> serverTimingFilter(
+    ServerTimingProperties properties,
+    MeterRegistry meterRegistry
+  ) {
+    FilterRegistrationBean<ServerTimingFilter> registration = new FilterRegistrationBean<>(
+      new ServerTimingFilter(properties, meterRegistry)
+    );
+    registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+    return registration;
+  }
+
+  @Override
+  public void addInterceptors(InterceptorRegistry registry) {
+    registry.addInterceptor(new StageInterceptor());
+  }
+
+  static class StageInterceptor implements HandlerInterceptor {
+
+    @Override
+    public boolean preHandle(
+      HttpServletRequest request,
+      HttpServletResponse response,
+      Object handler
+    ) {
+      ServerTimingRecorder recorder = ServerTiming.activeRecorder();
+      if (recorder != null) recorder.open(Stage.HANDLER);
+      return true;
+    }
+
+    @Override
+    public void afterCompletion(
+      HttpServletRequest request,
+      HttpServletResponse response,
+      Object handler,
+      Exception ex
+    ) {
+      ServerTimingRecorder recorder = ServerTiming.activeRecorder();
+      if (recorder == null) return;
+      // still open when nothing went through a message converter
+      recorder.close(Stage.HANDLER);
+      recorder.close(Stage.SERIALIZATION);
+    }
+  }
+
+  @ControllerAdvice
+  static class StageBodyAdvice implements ResponseBodyAdvice<Object> {
+
+    @Override
+    public boolean supports(
+      MethodParameter returnType,
+      Class<? extends HttpMessageConverter<?>> converterType
+    ) {
+      return true;
+    }
+
+    @Override
+    public Object beforeBodyWrite(
+      Object body,
+      MethodParameter returnType,
+      MediaType selectedContentType,
+      Class<? extends HttpMessageConverter<?>> selectedConverterType,
+      ServerHttpRequest request,
+      ServerHttpResponse response
+    ) {
+      ServerTimingRecorder recorder = ServerTiming.activeRecorder();
+      if (recorder == null) return body;
+      recorder.close(Stage.HANDLER);
+      recorder.open(Stage.SERIALIZATION);
+      return body;
+    }
+  }
+}
@@ -0,0 +1,308 @@
+package com.project.template.timing;
+
+import com.project.template.timing.ServerTiming.Stage;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.concurrent.TimeUnit;
+import org.springframework.http.MediaType;
+import org.springframework.util.StringUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * Selects the requests to record, runs them with a fresh recorder and writes
+ * the Server-Timing header right before the response commits. Up to a
+ * response buffer of body is held back, so small responses report every
+ * stage; larger ones stream through with the stages recorded until the
+ * buffer filled. Every stage also feeds the server.timing histogram.
+ */
+public class ServerTimingFilter extends OncePerRequestFilter {
+
+  public static final String SERVER_TIMING_HEADER = "Server-Timing";
+
+  private static final Stage[] STAGES = Stage.values();
+
+  /**
+   * Recording downloads are large and nobody reads their timings.
+   */
+  private static final String UNTIMED_PATH_PREFIX = "/actuator/jfr";
+
+  private final ServerTimingProperties properties;
+  private final byte[] headerToken;
+  private final Timer[] stageTimers = new Timer[STAGES.length];
+  private final Timer totalTimer;
+
+  public ServerTimingFilter(
+    ServerTimingProperties properties,
+    MeterRegistry meterRegistry
+  ) {
+    this.properties = properties;
+    this.headerToken = properties.getHeaderToken().getBytes(StandardCharsets.UTF_8);
+    for (Stage stage : STAGES) {
+      stageTimers[stage.ordinal()] = stageTimer(meterRegistry, stage.metricName(), stage.description());
+    }
+    this.totalTimer = stageTimer(meterRegistry, "total", "Whole request");
+    if (isEnabled()) ServerTiming.enable();
+  }
+
+  @Override
+  protected boolean shouldNotFilter(HttpServletRequest request) {
+    String path = request.getRequestURI().substring(request.getContextPath().length());
+    if (path.startsWith(UNTIMED_PATH_PREFIX)) return true;
+    return switch (properties.getMode()) {
+      case ALWAYS -> false;
+      case HEADER -> !hasPrivilegedHeader(request);
+      default -> true;
+    };
+  }
+
+  @Override
+  protected void doFilterInternal(
+    HttpServletRequest request,
+    HttpServletResponse response,
+    FilterChain filterChain
+  ) throws ServletException, IOException {
+    ServerTimingRecorder recorder = ServerTiming.threadRecorder();
+    TimedResponse timedResponse = new TimedResponse(response, recorder);
+    recorder.begin();
+    try {
+      filterChain.doFilter(request, timedResponse);
+    } finally {
+      recorder.end();
+      long totalNanos = recorder.totalNanos();
+      timedResponse.complete(totalNanos);
+      record(recorder, totalNanos);
+    }
+  }
+
+  private void record(ServerTimingRecorder recorder, long totalNanos) {
+    for (Stage stage : STAGES) {
+      long nanos = recorder.nanos(stage);
+      if (nanos > 0L) {
+        stageTimers[stage.ordinal()].record(nanos, TimeUnit.NANOSECONDS);
+      }
+    }
+    totalTimer.record(totalNanos, TimeUnit.NANOSECONDS);
+  }
+
+  private boolean isEnabled() {
+    return switch (properties.getMode()) {
+      case ALWAYS -> true;
+      case HEADER -> headerToken.length > 0;
+      default -> false;
+    };
+  }
+
+  private boolean hasPrivilegedHeader(HttpServletRequest request) {
+    if (headerToken.length == 0) return false;
+    String token = request.getHeader(properties.getHeaderName());
+    return (
+      StringUtils.hasText(token) &&
+      MessageDigest.isEqual(headerToken, token.getBytes(StandardCharsets.UTF_8))
+    );
+  }
+
+  /**
+   * Holds the body back until it outgrows the response buffer, a flush, or
+   * the end of the request, then sets the header and lets the body through.
+   * sendError (the 401 of the entry point) and sendRedirect commit right away,
+   * those responses get the stages recorded so far. Binary bodies aren't held
+   * back at all.
+   */
+  private static class TimedResponse extends HttpServletResponseWrapper {
+
+    private static final int MIN_BUFFER_BYTES = 1024;
+
+    private final ServerTimingRecorder recorder;
+    private byte[] pending;
+    private int pendingLength;
+    private boolean released;
+    private ServletOutputStream outputStream;
+    private PrintWriter writer;
+
+    TimedResponse(HttpServletResponse response, ServerTimingRecorder recorder) {
+      super(response);
+      this.recorder = recorder;
+    }
+
+    @Override
+    public ServletOutputStream getOutputStream() {
+      if (outputStream == null) outputStream = new TimedOutputStream();
+      return outputStream;
+    }
+
+    @Override
+    public PrintWriter getWriter() throws IOException {
+      if (writer == null) {
+        writer =
+          new PrintWriter(
+            new OutputStreamWriter(getOutputStream(), getCharacterEncoding())
+          );
+      }
+      return writer;
+    }
+
+    @Override
+    public void flushBuffer() throws IOException {
+      if (writer != null) writer.flush();
+      release(recorder.totalNanos());
+      super.flushBuffer();
+    }
+
+    @Override
+    public void resetBuffer() {
+      pendingLength = 0;
+      super.resetBuffer();
+    }
+
+    @Override
+    public void reset() {
+      pendingLength = 0;
+      super.reset();
+    }
+
+    @Override
+    public void sendError(int sc) throws IOException {
+      discardPending();
+      super.sendError(sc);
+    }
+
+    @Override
+    public void sendError(int sc, String msg) throws IOException {
+      discardPending();
+      super.sendError(sc, msg);
+    }
+
+    @Override
+    public void sendRedirect(String location) throws IOException {
+      discardPending();
+      super.sendRedirect(location);
+    }
+
+    void complete(long totalNanos) throws IOException {
+      if (writer != null) writer.flush();
+      release(totalNanos);
+    }
+
+    private void write(byte[] bytes, int offset, int length) throws IOException {
+      if (!released && !isBinary()) {
+        if (pending == null) {
+          pending = new byte[Math.max(getBufferSize(), MIN_BUFFER_BYTES)];
+        }
+        if (pendingLength + length <= pending.length) {
+          System.arraycopy(bytes, offset, pending, pendingLength, length);
+          pendingLength += length;
+          return;
+        }
+      }
+      release(recorder.totalNanos());
+      getResponse().getOutputStream().write(bytes, offset, length);
+    }
+
+    private void release(long totalNanos) throws IOException {
+      if (released) return;
+      released = true;
+      setServerTiming(totalNanos);
+      if (pendingLength > 0) {
+        getResponse().getOutputStream().write(pending, 0, pendingLength);
+      }
+      pending = null;
+      pendingLength = 0;
+    }
+
+    /**
+     * The container replaces the body of errors and redirects.
+     */
+    private void discardPending() {
+      if (!released) setServerTiming(recorder.totalNanos());
+      released = true;
+      pending = null;
+      pendingLength = 0;
+    }
+
+    private void setServerTiming(long totalNanos) {
+      if (!isCommitted()) {
+        recorder.accrueOpenStages();
+        setHeader(SERVER_TIMING_HEADER, recorder.renderHeader(totalNanos));
+      }
+    }
+
+    private boolean isBinary() {
+      String contentType = getContentType();
+      return (
+        contentType != null &&
+        contentType.startsWith(MediaType.APPLICATION_OCTET_STREAM_VALUE)
+      );
+    }
+
+    private class TimedOutputStream extends ServletOutputStream {
+
+      private final byte[] single = new byte[1];
+
+      @Override
+      public void write(int b) throws IOException {
+        single[0] = (byte) b;
+        TimedResponse.this.write(single, 0, 1);
+      }
+
+      @Override
+      public void write(byte[] bytes, int offset, int length) throws IOException {
+        TimedResponse.this.write(bytes, offset, length);
+      }
+
+      @Override
+      public void flush() throws IOException {
+        release(recorder.totalNanos());
+        getResponse().getOutputStream().flush();
+      }
+
+      @Override
+      public boolean isReady() {
+        if (!released) return true;
+        try {
+          return getResponse().getOutputStream().isReady();
+        } catch (IOException ex) {
+          throw new UncheckedIOException(ex);
+        }
+      }
+
+      /**
+       * Async writers go straight to the container.
+       */
+      @Override
+      public void setWriteListener(WriteListener writeListener) {
+        try {
+          release(recorder.totalNanos());
+          getResponse().getOutputStream().setWriteListener(writeListener);
+        } catch (IOException ex) {
+          throw new UncheckedIOException(ex);
+        }
+      }
+    }
+  }
+
+  private static Timer stageTimer(
+    MeterRegistry meterRegistry,
+    String stage,
+    String description
+  ) {
+    return Timer
+      .builder("server.timing")
+      .tag("stage", stage)
+      .description(description)
+      .publishPercentileHistogram()
+      .register(meterRegistry);
+  }
+}
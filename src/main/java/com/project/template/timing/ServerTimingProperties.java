@@ -0,0 +1,34 @@
+package com.project.template.timing;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "server-timing")
+public class ServerTimingProperties {
+
+  public enum Mode {
+    /**
+     * Nothing is recorded.
+     */
+    OFF,
+    /**
+     * Only requests carrying headerName with the headerToken value.
+     */
+    HEADER,
+    /**
+     * Every request, for load tests and local profiling.
+     */
+    ALWAYS,
+  }
+
+  private Mode mode = Mode.OFF;
+
+  private String headerName = "X-Server-Timing";
+
+  /**
+   * Secret callers send in headerName, HEADER mode stays off while it's empty.
+   * Stage timings tell a lot about the auth path, don't hand them to anyone.
+   */
+  private String headerToken = "";
+}
@@ -0,0 +1,100 @@
+package com.project.template.timing;
+
+import com.project.template.timing.ServerTiming.Stage;
+import java.util.Arrays;
+
+/**
+ * Stage durations of the request running on this thread. One instance per
+ * thread is reset and reused, recording a request allocates nothing until the
+ * header is rendered.
+ */
+class ServerTimingRecorder {
+
+  private static final Stage[] STAGES = Stage.values();
+
+  private final long[] stageNanos = new long[STAGES.length];
+  private final long[] openStages = new long[STAGES.length];
+  private final StringBuilder header = new StringBuilder(160);
+  private boolean active;
+  private long requestStart;
+
+  void begin() {
+    Arrays.fill(stageNanos, 0L);
+    Arrays.fill(openStages, 0L);
+    requestStart = System.nanoTime();
+    active = true;
+  }
+
+  void end() {
+    active = false;
+  }
+
+  boolean isActive() {
+    return active;
+  }
+
+  void add(Stage stage, long nanos) {
+    stageNanos[stage.ordinal()] += nanos;
+  }
+
+  long nanos(Stage stage) {
+    return stageNanos[stage.ordinal()];
+  }
+
+  long totalNanos() {
+    return System.nanoTime() - requestStart;
+  }
+
+  /**
+   * For stages that start and end in different callbacks (the controller and
+   * serialization). Closing a stage that isn't open does nothing.
+   */
+  void open(Stage stage) {
+    openStages[stage.ordinal()] = System.nanoTime();
+  }
+
+  void close(Stage stage) {
+    long start = openStages[stage.ordinal()];
+    if (start == 0L) return;
+    add(stage, System.nanoTime() - start);
+    openStages[stage.ordinal()] = 0L;
+  }
+
+  /**
+   * Adds the time open stages ran so far and keeps them open, for a header
+   * rendered while the body is still being written.
+   */
+  void accrueOpenStages() {
+    long now = System.nanoTime();
+    for (int i = 0; i < openStages.length; i++) {
+      if (openStages[i] == 0L) continue;
+      stageNanos[i] += now - openStages[i];
+      openStages[i] = now;
+    }
+  }
+
+  /**
+   * cookie;dur=0.041, jwt;dur=0.210, ..., total;dur=3.300 in milliseconds,
+   * stages that didn't run are left out.
+   */
+  String renderHeader(long totalNanos) {
+    header.setLength(0);
+    for (Stage stage : STAGES) {
+      long nanos = stageNanos[stage.ordinal()];
+      if (nanos == 0L) continue;
+      appendMetric(stage.metricName(), nanos);
+    }
+    appendMetric("total", totalNanos);
+    return header.toString();
+  }
+
+  private void appendMetric(String name, long nanos) {
+    if (header.length() > 0) header.append(", ");
+    long micros = nanos / 1000;
+    header.append(name).append(";dur=").append(micros / 1000).append('.');
+    long fraction = micros % 1000;
+    if (fraction < 100) header.append('0');
+    if (fraction < 10) header.append('0');
+    header.append(fraction);
+  }
+}
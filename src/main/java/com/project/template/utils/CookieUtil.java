@@ -33,8 +33,46 @@ public class CookieUtil {
         return buildCookieConfig(refreshTokenCookieName, token, duration);
     }
 
+    /**
+     * Finds a cookie in a raw Cookie header without parsing the others, returns
+     * the index where its value starts or -1. The value ends at
+     * {@link #cookieValueEnd(String, int)}.
+     */
+    public static int findCookieValue(String cookieHeader, String name) {
+        if (cookieHeader == null) return -1;
+        int length = cookieHeader.length();
+        int position = 0;
+        while (position < length) {
+            while (position < length && (cookieHeader.charAt(position) == ' ' || cookieHeader.charAt(position) == '\t'))
+                position++;
+            int nameEnd = position + name.length();
+            if (cookieHeader.startsWith(name, position) && nameEnd < length && cookieHeader.charAt(nameEnd) == '=') {
+                int valueStart = nameEnd + 1;
+                // quoted values are allowed by RFC 6265
+                if (valueStart < length && cookieHeader.charAt(valueStart) == '"') valueStart++;
+                return valueStart;
+            }
+            int separator = cookieHeader.indexOf(';', position);
+            if (separator < 0) return -1;
+            position = separator + 1;
+        }
+        return -1;
+    }
+
+    public static int cookieValueEnd(String cookieHeader, int valueStart) {
+        int separator = cookieHeader.indexOf(';', valueStart);
+        int end = separator < 0 ? cookieHeader.length() : separator;
+        while (end > valueStart && (cookieHeader.charAt(end - 1) == ' ' || cookieHeader.charAt(end - 1) == '"'))
+            end--;
+        return end;
+    }
+
     public HttpCookie deleteAccessTokenCookie() {
         return ResponseCookie.from(accessTokenCookieName, "").maxAge(0).httpOnly(true).path("/").build();
     }
 
+    public HttpCookie deleteRefreshTokenCookie() {
+        return ResponseCookie.from(refreshTokenCookieName, "").maxAge(0).httpOnly(true).path("/").build();
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,104 @@
+package com.project.template.utils;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Base64;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Short-lived, size-bounded memory of lookups that failed: emails with no user
+ * and tokens that didn't decrypt or verify. Repeated credential stuffing and
+ * forged tokens cost a hash lookup instead of a query or the crypto work.
+ * Tokens are kept as SHA-256 digests, never in clear.
+ */
+@Component
+public class NegativeLookupCache implements MeterBinder {
+
+  private static final Boolean PRESENT = Boolean.TRUE;
+
+  private final Cache<String, Boolean> unknownEmails;
+  private final Cache<String, Boolean> rejectedTokens;
+
+  public NegativeLookupCache(
+    @Value("${authentication.negativeCache.ttlMsec:60000}") long ttlMsec,
+    @Value("${authentication.negativeCache.maximumSize:100000}") long maximumSize
+  ) {
+    this.unknownEmails = buildCache(ttlMsec, maximumSize);
+    this.rejectedTokens = buildCache(ttlMsec, maximumSize);
+  }
+
+  public boolean isUnknownEmail(String email) {
+    return email != null && unknownEmails.getIfPresent(email) != null;
+  }
+
+  public void rememberUnknownEmail(String email) {
+    if (email != null) unknownEmails.put(email, PRESENT);
+  }
+
+  /**
+   * Called once the user exists. Other instances keep a stale entry for at most
+   * the TTL.
+   */
+  public void forgetUnknownEmail(String email) {
+    if (email != null) unknownEmails.invalidate(email);
+  }
+
+  public boolean isRejectedToken(String encryptedToken) {
+    return (
+      encryptedToken != null &&
+      rejectedTokens.getIfPresent(digest(encryptedToken)) != null
+    );
+  }
+
+  public void rememberRejectedToken(String encryptedToken) {
+    if (encryptedToken != null) rejectedTokens.put(
+      digest(encryptedToken),
+      PRESENT
+    );
+  }
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    CaffeineCacheMetrics.monitor(registry, unknownEmails, "negative.unknownEmails");
+    CaffeineCacheMetrics.monitor(
+      registry,
+      rejectedTokens,
+      "negative.rejectedTokens"
+    );
+  }
+
+  private static Cache<String, Boolean> buildCache(
+    long ttlMsec,
+    long maximumSize
+  ) {
+    return Caffeine
+      .newBuilder()
+      .expireAfterWrite(Duration.ofMillis(ttlMsec))
+      .maximumSize(maximumSize)
+      .recordStats()
+      .build();
+  }
+
+  private static String digest(String value) {
+    try {
+      return Base64
+        .getEncoder()
+        .withoutPadding()
+        .encodeToString(
+          MessageDigest
+            .getInstance("SHA-256")
+            .digest(value.getBytes(StandardCharsets.UTF_8))
+        );
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+}
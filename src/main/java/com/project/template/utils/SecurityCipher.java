@@ -1,20 +1,48 @@
 package com.project.template.utils;
 
 import com.project.template.exception.SecurityCipherDecodeException;
+import com.project.template.profiling.CookieCipherEvent;
 import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.Arrays;
 import java.util.Base64;
 import javax.crypto.Cipher;
 import javax.crypto.spec.SecretKeySpec;
+import lombok.extern.slf4j.Slf4j;
 
+/**
+ * The key is derived once and every thread keeps its own initialized ciphers
+ * and buffers (ECB has no IV, so a cipher is reusable after doFinal). Decrypt
+ * reads the Base64 text straight from a range of the caller's string, e.g.
+ * the Cookie header, so the decrypted value is the only allocation.
+ */
+@Slf4j
 public class SecurityCipher {
 
   private static final String KEYVALUE = "secureKey";
+  private static final String TRANSFORMATION = "AES/ECB/PKCS5Padding";
+  /**
+   * Decrypts without padding and strips the PKCS#5 padding itself: the JDK
+   * copies the whole output once more to check the padding.
+   */
+  private static final String DECRYPT_TRANSFORMATION = "AES/ECB/NoPadding";
+  private static final int BLOCK_SIZE = 16;
+  private static final String ENCRYPT = "encrypt";
+  private static final String DECRYPT = "decrypt";
+  private static final byte[] BASE64_VALUES = base64Values();
   private static SecretKeySpec secretKey;
   private static byte[] key;
 
+  private static final ThreadLocal<CipherContext> CIPHER_CONTEXT = ThreadLocal.withInitial(
+    CipherContext::new
+  );
+
+  static {
+    setKey();
+  }
+
   private SecurityCipher() {
     throw new AssertionError("Static!");
   }
@@ -28,60 +56,180 @@ public class SecurityCipher {
       key = Arrays.copyOf(key, 16);
       secretKey = new SecretKeySpec(key, "AES");
     } catch (NoSuchAlgorithmException e) {
-      e.printStackTrace();
+      log.error("Could not derive the cookie key", e);
     }
   }
 
   public static String encrypt(String strToEncrypt) {
     if (strToEncrypt == null) return null;
 
+    CookieCipherEvent event = new CookieCipherEvent();
+    event.begin();
     try {
-      setKey();
-      Cipher cipher = Cipher.getInstance("AES/ECB/PKCS5Padding");
-      cipher.init(Cipher.ENCRYPT_MODE, secretKey);
-      return Base64
+      Cipher cipher = CIPHER_CONTEXT.get().encryptCipher();
+      String encrypted = Base64
         .getEncoder()
         .encodeToString(
           cipher.doFinal(strToEncrypt.getBytes(StandardCharsets.UTF_8))
         );
+      event.finish(ENCRYPT, true);
+      return encrypted;
     } catch (Exception e) {
-      e.printStackTrace();
+      log.error("Could not encrypt value", e);
+      CIPHER_CONTEXT.remove();
     }
+    event.finish(ENCRYPT, false);
     return null;
   }
 
   public static String decrypt(String strToDecrypt, boolean throwException) {
     if (strToDecrypt == null) return null;
+    return decrypt(strToDecrypt, 0, strToDecrypt.length(), throwException);
+  }
 
+  public static String decrypt(String strToDecrypt) {
+    if (strToDecrypt == null) return null;
+    return decrypt(strToDecrypt, 0, strToDecrypt.length(), false);
+  }
+
+  /**
+   * Decrypts the Base64 text between start (inclusive) and end (exclusive).
+   */
+  public static String decrypt(
+    CharSequence source,
+    int start,
+    int end,
+    boolean throwException
+  ) {
+    CookieCipherEvent event = new CookieCipherEvent();
+    event.begin();
     try {
-      setKey();
-      Cipher cipher = Cipher.getInstance("AES/ECB/PKCS5Padding");
-      cipher.init(Cipher.DECRYPT_MODE, secretKey);
-      return new String(
-        cipher.doFinal(Base64.getDecoder().decode(strToDecrypt))
-      );
-    } catch (Exception e) {
-      e.printStackTrace();
+      CipherContext context = CIPHER_CONTEXT.get();
+      byte[] encrypted = context.input((end - start + 3) / 4 * 3);
+      int length = decodeBase64(source, start, end, encrypted);
+      if (length > 0 && length % BLOCK_SIZE == 0) {
+        Cipher cipher = context.decryptCipher();
+        byte[] decrypted = context.output(length);
+        int decryptedLength = unpad(
+          decrypted,
+          cipher.doFinal(encrypted, 0, length, decrypted, 0)
+        );
+        if (decryptedLength >= 0) {
+          String value = new String(decrypted, 0, decryptedLength, StandardCharsets.UTF_8);
+          event.finish(DECRYPT, true);
+          return value;
+        }
+      }
+      // tampered or truncated input, expected from clients
+      log.debug("Could not decrypt value: malformed input or padding");
+    } catch (GeneralSecurityException | IllegalStateException e) {
+      // tampered or truncated input, expected from clients
+      log.debug("Could not decrypt value: {}", e.getMessage());
+      CIPHER_CONTEXT.get().discardDecryptCipher();
     }
+    event.finish(DECRYPT, false);
     if (throwException) throw new SecurityCipherDecodeException(
       "Malformed token"
     );
     return null;
   }
 
-  public static String decrypt(String strToDecrypt) {
-    if (strToDecrypt == null) return null;
+  /**
+   * Length without the PKCS#5 padding, -1 when the padding is malformed.
+   */
+  private static int unpad(byte[] decrypted, int length) {
+    if (length == 0) return -1;
+    int padding = decrypted[length - 1];
+    if (padding < 1 || padding > BLOCK_SIZE) return -1;
+    for (int i = length - padding; i < length; i++) {
+      if (decrypted[i] != padding) return -1;
+    }
+    return length - padding;
+  }
 
-    try {
-      setKey();
-      Cipher cipher = Cipher.getInstance("AES/ECB/PKCS5Padding");
-      cipher.init(Cipher.DECRYPT_MODE, secretKey);
-      return new String(
-        cipher.doFinal(Base64.getDecoder().decode(strToDecrypt))
-      );
-    } catch (Exception e) {
-      e.printStackTrace();
+  /**
+   * Standard alphabet, padding optional, same as Base64.getDecoder(). Returns
+   * the decoded length, -1 when the input isn't valid Base64.
+   */
+  static int decodeBase64(CharSequence source, int start, int end, byte[] target) {
+    while (end > start && source.charAt(end - 1) == '=') end--;
+    if ((end - start) % 4 == 1) return -1;
+    int length = 0;
+    int bits = 0;
+    int pending = 0;
+    for (int i = start; i < end; i++) {
+      char c = source.charAt(i);
+      int value = c < BASE64_VALUES.length ? BASE64_VALUES[c] : -1;
+      if (value < 0) return -1;
+      bits = (bits << 6) | value;
+      pending += 6;
+      if (pending >= 8) {
+        pending -= 8;
+        target[length++] = (byte) (bits >> pending);
+      }
+    }
+    return length;
+  }
+
+  private static byte[] base64Values() {
+    byte[] values = new byte[128];
+    Arrays.fill(values, (byte) -1);
+    String alphabet =
+      "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/";
+    for (int i = 0; i < alphabet.length(); i++) {
+      values[alphabet.charAt(i)] = (byte) i;
+    }
+    return values;
+  }
+
+  /**
+   * Per-thread ciphers and buffers. Buffers above MAX_RETAINED_BYTES are
+   * handed out once and not kept, so an oversized cookie can't pin memory on
+   * a pool thread.
+   */
+  private static class CipherContext {
+
+    private static final int INITIAL_BYTES = 512;
+    private static final int MAX_RETAINED_BYTES = 16 * 1024;
+
+    private Cipher encryptCipher;
+    private Cipher decryptCipher;
+    private byte[] input = new byte[INITIAL_BYTES];
+    private byte[] output = new byte[INITIAL_BYTES];
+
+    Cipher encryptCipher() throws GeneralSecurityException {
+      if (encryptCipher == null) {
+        encryptCipher = Cipher.getInstance(TRANSFORMATION);
+        encryptCipher.init(Cipher.ENCRYPT_MODE, secretKey);
+      }
+      return encryptCipher;
+    }
+
+    Cipher decryptCipher() throws GeneralSecurityException {
+      if (decryptCipher == null) {
+        decryptCipher = Cipher.getInstance(DECRYPT_TRANSFORMATION);
+        decryptCipher.init(Cipher.DECRYPT_MODE, secretKey);
+      }
+      return decryptCipher;
+    }
+
+    /**
+     * After a failed doFinal the cipher's state isn't guaranteed, start over.
+     */
+    void discardDecryptCipher() {
+      decryptCipher = null;
+    }
+
+    byte[] input(int size) {
+      if (size <= input.length) return input;
+      if (size > MAX_RETAINED_BYTES) return new byte[size];
+      return input = new byte[size];
+    }
+
+    byte[] output(int size) {
+      if (size <= output.length) return output;
+      if (size > MAX_RETAINED_BYTES) return new byte[size];
+      return output = new byte[size];
     }
-    return null;
   }
 }
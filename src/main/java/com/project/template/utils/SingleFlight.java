@@ -0,0 +1,70 @@
+package com.project.template.utils;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * Coalesces concurrent loads of the same key: the first caller runs the loader
+ * on its own thread (so its transaction and routing decisions apply) and every
+ * caller arriving meanwhile waits for that result, or for the same exception,
+ * instead of running its own query. Nothing is cached once the load finishes.
+ * Values that mustn't be shared between callers, like managed JPA entities,
+ * take a copier: the first caller keeps the loaded value and every waiting
+ * caller gets its own copy.
+ */
+public class SingleFlight<K, V> {
+
+  private final Map<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+  private final long timeoutMsec;
+  private final UnaryOperator<V> copier;
+
+  public SingleFlight(Duration timeout) {
+    this(timeout, UnaryOperator.identity());
+  }
+
+  public SingleFlight(Duration timeout, UnaryOperator<V> copier) {
+    this.timeoutMsec = timeout.toMillis();
+    this.copier = copier;
+  }
+
+  public V execute(K key, Supplier<V> loader) {
+    CompletableFuture<V> load = new CompletableFuture<>();
+    CompletableFuture<V> existing = inFlight.putIfAbsent(key, load);
+    if (existing != null) return copier.apply(await(key, existing));
+
+    try {
+      V value = loader.get();
+      load.complete(value);
+      return value;
+    } catch (RuntimeException | Error ex) {
+      load.completeExceptionally(ex);
+      throw ex;
+    } finally {
+      inFlight.remove(key, load);
+    }
+  }
+
+  private V await(K key, CompletableFuture<V> load) {
+    try {
+      return load.get(timeoutMsec, TimeUnit.MILLISECONDS);
+    } catch (ExecutionException ex) {
+      if (ex.getCause() instanceof RuntimeException cause) throw cause;
+      if (ex.getCause() instanceof Error cause) throw cause;
+      throw new IllegalStateException(ex.getCause());
+    } catch (TimeoutException ex) {
+      throw new IllegalStateException(
+        "Timed out after " + timeoutMsec + "ms waiting for the load of " + key
+      );
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted waiting for the load of " + key);
+    }
+  }
+}
@@ -0,0 +1,30 @@
+package com.project.template.utils;
+
+import com.project.template.dto.CustomUserDetails;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps the minimum accepted token version of users whose tokens were
+ * invalidated, so stateless authentication can reject them without a query.
+ */
+@Component
+public class TokenVersionRegistry {
+
+  private final Map<Long, Integer> minimumVersions = new ConcurrentHashMap<>();
+
+  public void invalidateBelow(Long userId, int tokenVersion) {
+    minimumVersions.merge(userId, tokenVersion, Math::max);
+  }
+
+  public boolean isCurrent(CustomUserDetails userDetails) {
+    Integer minimumVersion = minimumVersions.get(
+      userDetails.getUser().getId()
+    );
+    return (
+      minimumVersion == null ||
+      userDetails.getUser().getTokenVersion() >= minimumVersion
+    );
+  }
+}
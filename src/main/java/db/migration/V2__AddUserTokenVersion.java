@@ -0,0 +1,20 @@
+package db.migration;
+
+import java.sql.Connection;
+import java.sql.Statement;
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+public class V2__AddUserTokenVersion extends BaseJavaMigration {
+
+  @Override
+  public void migrate(Context context) throws Exception {
+    Connection connection = context.getConnection();
+    Statement statement = connection.createStatement();
+    statement.execute(
+      "ALTER TABLE users ADD COLUMN token_version integer NOT NULL DEFAULT 0;"
+    );
+
+    statement.close();
+  }
+}
@@ -0,0 +1,21 @@
+package db.migration;
+
+import java.sql.Connection;
+import java.sql.Statement;
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+public class V3__AddUserLoginActivity extends BaseJavaMigration {
+
+  @Override
+  public void migrate(Context context) throws Exception {
+    Connection connection = context.getConnection();
+    Statement statement = connection.createStatement();
+    statement.execute("ALTER TABLE users ADD COLUMN last_login_at timestamp;");
+    statement.execute(
+      "ALTER TABLE users ADD COLUMN login_count bigint NOT NULL DEFAULT 0;"
+    );
+
+    statement.close();
+  }
+}
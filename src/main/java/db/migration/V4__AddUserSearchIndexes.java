@@ -0,0 +1,103 @@
+package db.migration;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Indexes for UserRepository.search, which filters on lower(name) and
+ * lower(email) with LIKE. On Postgres prefix searches walk btrees on
+ * (lower(column) COLLATE "C", id), in the order the search pages by; the C
+ * collation lets them serve LIKE 'prefix%'. pg_trgm GIN indexes serve
+ * substrings. All are built CONCURRENTLY so signups keep writing to users
+ * meanwhile. H2 (dev and tests) can't match lower(name) to an index, searches
+ * scan there and nothing is created.
+ */
+public class V4__AddUserSearchIndexes extends BaseJavaMigration {
+
+  private static final Logger log = LoggerFactory.getLogger(
+    V4__AddUserSearchIndexes.class
+  );
+
+  /**
+   * CREATE INDEX CONCURRENTLY can't run inside a transaction.
+   */
+  @Override
+  public boolean canExecuteInTransaction() {
+    return false;
+  }
+
+  @Override
+  public void migrate(Context context) throws Exception {
+    Connection connection = context.getConnection();
+    if (
+      !"PostgreSQL".equals(connection.getMetaData().getDatabaseProductName())
+    ) return;
+
+    createIndexConcurrently(
+      connection,
+      "users_lower_name_key_idx",
+      "((lower(name) COLLATE \"C\"), id)"
+    );
+    createIndexConcurrently(
+      connection,
+      "users_lower_email_key_idx",
+      "((lower(email) COLLATE \"C\"), id)"
+    );
+    // creating the extension needs a privileged role, without it substring
+    // searches still work but scan
+    try (Statement statement = connection.createStatement()) {
+      statement.execute("CREATE EXTENSION IF NOT EXISTS pg_trgm;");
+    } catch (SQLException ex) {
+      log.warn(
+        "pg_trgm unavailable, substring user search won't be indexed: {}",
+        ex.getMessage()
+      );
+      return;
+    }
+    createIndexConcurrently(
+      connection,
+      "users_lower_name_trgm_idx",
+      "USING gin (lower(name) gin_trgm_ops)"
+    );
+    createIndexConcurrently(
+      connection,
+      "users_lower_email_trgm_idx",
+      "USING gin (lower(email) gin_trgm_ops)"
+    );
+  }
+
+  /**
+   * A concurrent build that fails partway (cancelled, deadlocked) leaves an
+   * INVALID index behind, which IF NOT EXISTS would keep. It's dropped first
+   * so a rerun after flyway repair builds it again.
+   */
+  private static void createIndexConcurrently(
+    Connection connection,
+    String name,
+    String definition
+  ) throws SQLException {
+    try (
+      PreparedStatement invalid = connection.prepareStatement(
+        "SELECT 1 FROM pg_index WHERE indexrelid = to_regclass(?) AND NOT indisvalid"
+      );
+      Statement statement = connection.createStatement()
+    ) {
+      invalid.setString(1, name);
+      try (ResultSet resultSet = invalid.executeQuery()) {
+        if (resultSet.next()) statement.execute(
+          "DROP INDEX CONCURRENTLY IF EXISTS " + name + ";"
+        );
+      }
+      statement.execute(
+        "CREATE INDEX CONCURRENTLY IF NOT EXISTS " + name + " ON users " + definition + ";"
+      );
+    }
+  }
+}
@@ -0,0 +1,53 @@
+package com.project.template;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.project.template.dto.CreateUserDTO;
+import com.project.template.dto.LoginRequest;
+import com.project.template.dto.LoginResponse;
+import com.project.template.model.User;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+
+/**
+ * Boots the whole application (Flyway Java migrations included) on H2 and runs
+ * the signup and login flow, -PnativeTest runs it as a native binary.
+ */
+@Tag("native")
+@SpringBootTest(
+  webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+  properties = {
+    "spring.datasource.url=jdbc:h2:mem:native_db;MODE=PostgreSQL",
+    "spring.flyway.enabled=true",
+    "spring.jpa.hibernate.ddl-auto=none",
+  }
+)
+class NativeApplicationTests {
+
+  @Autowired
+  private TestRestTemplate restTemplate;
+
+  @Test
+  void itShouldCreateAndLoginAnUser() {
+    var createdUser = restTemplate.postForEntity(
+      "/api/v1/users",
+      new CreateUserDTO("native@gmail.com", "Native", "testepassword"),
+      User.class
+    );
+    assertThat(createdUser.getStatusCode()).isEqualTo(HttpStatus.OK);
+
+    var loginResponse = restTemplate.postForEntity(
+      "/api/v1/users/login",
+      new LoginRequest("native@gmail.com", "testepassword"),
+      LoginResponse.class
+    );
+    assertThat(loginResponse.getStatusCode()).isEqualTo(HttpStatus.OK);
+    assertThat(loginResponse.getHeaders().get(HttpHeaders.SET_COOKIE))
+      .hasSize(2);
+  }
+}
@@ -0,0 +1,190 @@
+package com.project.template;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.project.template.dto.CreateUserDTO;
+import com.project.template.dto.LoginRequest;
+import com.project.template.model.User;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.RestTemplate;
+
+/**
+ * Measures time to the first successful login of a fresh JVM, each run is a
+ * separate process so every run is a cold start. Startup steps recorded by
+ * BufferingApplicationStartup are summed per step name and the medians are
+ * written to target/startup-benchmark.json for trending.
+ *
+ * mvn -Pbenchmark test -Dtest=StartupBenchmarkTests -Dstartup.benchmark.runs=5
+ */
+@Tag("benchmark")
+class StartupBenchmarkTests {
+
+  private static final String RESULT_PREFIX = "STARTUP_BENCHMARK_RESULT ";
+  private static final int RUNS = Integer.getInteger("startup.benchmark.runs", 3);
+  private static final int REPORTED_STEPS = 15;
+
+  private final ObjectMapper objectMapper = new ObjectMapper();
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void timeToFirstLogin() throws Exception {
+    List<Map<String, Object>> results = new ArrayList<>();
+    for (int run = 0; run < RUNS; run++) {
+      Process process = new ProcessBuilder(
+        ProcessHandle.current().info().command().orElse("java"),
+        // devtools isn't part of the packaged jar, keep it out of the numbers
+        "-Dspring.devtools.restart.enabled=false",
+        "-cp",
+        System.getProperty("java.class.path"),
+        StartupBenchmarkTests.class.getName(),
+        String.valueOf(run)
+      )
+        .redirectErrorStream(true)
+        .start();
+      try (
+        BufferedReader reader = new BufferedReader(
+          new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8)
+        )
+      ) {
+        String line;
+        while ((line = reader.readLine()) != null) {
+          if (line.startsWith(RESULT_PREFIX)) results.add(
+            objectMapper.readValue(line.substring(RESULT_PREFIX.length()), Map.class)
+          );
+        }
+      }
+      assertThat(process.waitFor()).isZero();
+    }
+    assertThat(results).hasSize(RUNS);
+
+    Map<String, Object> report = new LinkedHashMap<>();
+    report.put("runs", RUNS);
+    report.put(
+      "timeToFirstLoginMs",
+      median(results.stream().map(result -> toLong(result.get("timeToFirstLoginMs"))).toList())
+    );
+    report.put(
+      "contextStartupMs",
+      median(results.stream().map(result -> toLong(result.get("contextStartupMs"))).toList())
+    );
+    Map<String, Long> steps = new TreeMap<>();
+    results
+      .stream()
+      .flatMap(result -> ((Map<String, Object>) result.get("steps")).keySet().stream())
+      .distinct()
+      .forEach(step ->
+        steps.put(
+          step,
+          median(
+            results
+              .stream()
+              .map(result -> toLong(((Map<String, Object>) result.get("steps")).getOrDefault(step, 0)))
+              .toList()
+          )
+        )
+      );
+    report.put("steps", sortByDuration(steps));
+    objectMapper
+      .writerWithDefaultPrettyPrinter()
+      .writeValue(new File("target/startup-benchmark.json"), report);
+    System.out.println(
+      objectMapper.writerWithDefaultPrettyPrinter().writeValueAsString(report)
+    );
+  }
+
+  /**
+   * A single cold run: starts the application on H2 with Flyway, signs up and
+   * logs in once, then prints the measurements.
+   */
+  public static void main(String[] args) throws Exception {
+    long start = System.nanoTime();
+    BufferingApplicationStartup startup = new BufferingApplicationStartup(10_000);
+    try (
+      ConfigurableApplicationContext context = new SpringApplicationBuilder(
+        TemplateApplication.class
+      )
+        .applicationStartup(startup)
+        .properties(
+          "spring.datasource.url=jdbc:h2:mem:startup_" + args[0] + ";MODE=PostgreSQL",
+          "spring.flyway.enabled=true",
+          "spring.jpa.hibernate.ddl-auto=none"
+        )
+        .run()
+    ) {
+      long contextStartup = System.nanoTime() - start;
+      String baseUrl =
+        "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+      RestTemplate restTemplate = new RestTemplate();
+      restTemplate.postForEntity(
+        baseUrl + "/api/v1/users",
+        new CreateUserDTO("startup@gmail.com", "Startup", "testepassword"),
+        User.class
+      );
+      var login = restTemplate.postForEntity(
+        baseUrl + "/api/v1/users/login",
+        new LoginRequest("startup@gmail.com", "testepassword"),
+        String.class
+      );
+      long timeToFirstLogin = System.nanoTime() - start;
+      if (login.getStatusCode() != HttpStatus.OK) System.exit(1);
+
+      Map<String, Long> steps = startup
+        .getBufferedTimeline()
+        .getEvents()
+        .stream()
+        .collect(
+          Collectors.groupingBy(
+            event -> event.getStartupStep().getName(),
+            Collectors.summingLong(event -> event.getDuration().toMillis())
+          )
+        );
+      Map<String, Object> result = new LinkedHashMap<>();
+      result.put("timeToFirstLoginMs", timeToFirstLogin / 1_000_000);
+      result.put("contextStartupMs", contextStartup / 1_000_000);
+      result.put("steps", steps);
+      System.out.println(RESULT_PREFIX + new ObjectMapper().writeValueAsString(result));
+    }
+  }
+
+  private static Map<String, Long> sortByDuration(Map<String, Long> steps) {
+    return steps
+      .entrySet()
+      .stream()
+      .sorted(Map.Entry.<String, Long>comparingByValue(Comparator.reverseOrder()))
+      .limit(REPORTED_STEPS)
+      .collect(
+        Collectors.toMap(
+          Map.Entry::getKey,
+          Map.Entry::getValue,
+          (first, second) -> first,
+          LinkedHashMap::new
+        )
+      );
+  }
+
+  private static long median(List<Long> values) {
+    List<Long> sorted = values.stream().sorted().toList();
+    return sorted.get(sorted.size() / 2);
+  }
+
+  private static long toLong(Object value) {
+    return ((Number) value).longValue();
+  }
+}
@@ -0,0 +1,117 @@
+package com.project.template.config;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.project.template.dto.TokenIntrospectionResult;
+import com.project.template.model.User;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+/**
+ * JSON against CBOR and Smile, with the mappers BinaryFormatsConfig builds, for
+ * the two response shapes service callers see: a single user and an
+ * introspection batch. Each trial prints its payload size.
+ *
+ * mvn -Pbenchmark test -Dtest=BinaryFormatsBenchmark
+ */
+@Tag("benchmark")
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BinaryFormatsBenchmark {
+
+  private static final int BATCH_SIZE = 100;
+
+  @Param({ "json", "cbor", "smile" })
+  public String format;
+
+  @Param({ "user", "batch" })
+  public String payload;
+
+  private ObjectMapper objectMapper;
+  private Object value;
+  private JavaType type;
+  private byte[] serialized;
+
+  @Setup(Level.Trial)
+  public void setUp() throws Exception {
+    Jackson2ObjectMapperBuilder builder = Jackson2ObjectMapperBuilder.json();
+    objectMapper =
+      switch (format) {
+        case "cbor" -> BinaryFormatsConfig.cborObjectMapper(builder);
+        case "smile" -> BinaryFormatsConfig.smileObjectMapper(builder);
+        default -> builder.build();
+      };
+
+    User user = user(1);
+    if ("batch".equals(payload)) {
+      List<TokenIntrospectionResult> results = new ArrayList<>(BATCH_SIZE);
+      for (int i = 0; i < BATCH_SIZE; i++) {
+        // a realistic mix: most tokens valid, some expired or forged
+        results.add(
+          i % 5 == 0
+            ? TokenIntrospectionResult.inactive("Token invalid!")
+            : TokenIntrospectionResult.active(user(i))
+        );
+      }
+      value = results;
+      type =
+        objectMapper
+          .getTypeFactory()
+          .constructCollectionType(List.class, TokenIntrospectionResult.class);
+    } else {
+      value = user;
+      type = objectMapper.getTypeFactory().constructType(User.class);
+    }
+    serialized = objectMapper.writeValueAsBytes(value);
+    System.out.printf("%n%s %s payload: %d bytes%n", format, payload, serialized.length);
+  }
+
+  @Benchmark
+  public byte[] serialize() throws Exception {
+    return objectMapper.writeValueAsBytes(value);
+  }
+
+  @Benchmark
+  public Object deserialize() throws Exception {
+    return objectMapper.readValue(serialized, type);
+  }
+
+  private static User user(long id) {
+    return User
+      .builder()
+      .id(id)
+      .email("user" + id + "@gmail.com")
+      .name("User " + id)
+      .build();
+  }
+
+  @Test
+  void run() throws Exception {
+    new Runner(
+      new OptionsBuilder().include(BinaryFormatsBenchmark.class.getName()).build()
+    )
+      .run();
+  }
+}
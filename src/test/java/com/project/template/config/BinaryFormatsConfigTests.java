@@ -0,0 +1,101 @@
+package com.project.template.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class BinaryFormatsConfigTests {
+
+  private static final String EMAIL_AVAILABLE =
+    "/api/v1/users/email-available?email=nobody@gmail.com";
+
+  @Autowired
+  private MockMvc mockMvc;
+
+  @Test
+  void itShouldKeepJsonForBrowsers() throws Exception {
+    mockMvc
+      .perform(
+        get(EMAIL_AVAILABLE)
+          .header(
+            "Accept",
+            "text/html,application/xhtml+xml,application/xml;q=0.9,*/*;q=0.8"
+          )
+      )
+      .andExpect(status().isOk())
+      .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+      .andExpect(content().json("{\"available\":true}"));
+  }
+
+  @Test
+  void itShouldAnswerInCborWhenAsked() throws Exception {
+    byte[] body = mockMvc
+      .perform(get(EMAIL_AVAILABLE).accept(MediaType.APPLICATION_CBOR))
+      .andExpect(status().isOk())
+      .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_CBOR))
+      .andReturn()
+      .getResponse()
+      .getContentAsByteArray();
+
+    assertThat(new CBORMapper().readTree(body).get("available").asBoolean())
+      .isTrue();
+  }
+
+  @Test
+  void itShouldReadCborRequestBodies() throws Exception {
+    byte[] body = mockMvc
+      .perform(
+        post("/api/v1/users/login")
+          .contentType(MediaType.APPLICATION_CBOR)
+          .accept(MediaType.APPLICATION_CBOR)
+          .content(
+            new CBORMapper()
+              .writeValueAsBytes(Map.of("email", "not-an-email", "password", "x"))
+          )
+      )
+      .andExpect(status().isBadRequest())
+      .andReturn()
+      .getResponse()
+      .getContentAsByteArray();
+
+    assertThat(new CBORMapper().readTree(body).get("errors").get(0).asText())
+      .isEqualTo("Field email Please provide valid email address");
+  }
+
+  @Test
+  void itShouldSendErrorsInSmileWhenAsked() throws Exception {
+    byte[] body = mockMvc
+      .perform(
+        get("/api/v1/users/email-available?email= ")
+          .accept(BinaryFormatsConfig.APPLICATION_SMILE_VALUE)
+      )
+      .andExpect(status().isBadRequest())
+      .andExpect(
+        content()
+          .contentTypeCompatibleWith(BinaryFormatsConfig.APPLICATION_SMILE_VALUE)
+      )
+      .andReturn()
+      .getResponse()
+      .getContentAsByteArray();
+
+    JsonNode error = new SmileMapper().readTree(body);
+    assertThat(error.get("code").asInt()).isEqualTo(400);
+    assertThat(error.get("errors").get(0).asText())
+      .isEqualTo("Email must not be blank.");
+  }
+}
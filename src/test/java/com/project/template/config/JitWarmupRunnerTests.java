@@ -0,0 +1,50 @@
+package com.project.template.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.project.template.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.availability.ApplicationAvailability;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpStatus;
+
+@SpringBootTest(
+  webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+  properties = {
+    "spring.datasource.url=jdbc:h2:mem:warmup_db;MODE=PostgreSQL",
+    "management.endpoint.health.probes.enabled=true",
+    "warmup.enabled=true",
+    "warmup.iterations=200",
+    "warmup.passwordIterations=1",
+    "warmup.queryIterations=20",
+  }
+)
+class JitWarmupRunnerTests {
+
+  @Autowired
+  private TestRestTemplate restTemplate;
+
+  @Autowired
+  private ApplicationAvailability applicationAvailability;
+
+  @Autowired
+  private UserRepository userRepository;
+
+  @Test
+  void itShouldReportReadyAfterWarmupWithoutWritingToTheDatabase() {
+    assertThat(applicationAvailability.getReadinessState())
+      .isEqualTo(ReadinessState.ACCEPTING_TRAFFIC);
+    assertThat(
+      restTemplate
+        .getForEntity("/actuator/health/readiness", String.class)
+        .getStatusCode()
+    )
+      .isEqualTo(HttpStatus.OK);
+    assertThat(userRepository.count()).isZero();
+    assertThat(userRepository.findUserByEmail(JitWarmupRunner.WARMUP_EMAIL))
+      .isEmpty();
+  }
+}
@@ -0,0 +1,168 @@
+package com.project.template.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.hamcrest.Matchers.contains;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.project.template.controller.JwksController;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.SignatureException;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.spec.ECGenParameterSpec;
+import java.util.Base64;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+class JwtKeyRingTests {
+
+  private static final String TOKEN_SECRET =
+    "JKppIO23J423NASDKJHxccxa2133ASKDFOEW3434423N13sndmas2123LXCKLJKppIO23J423NASDKJHxccxa2133ASKDFOEW3434423N13sndmas2123LXCKL";
+
+  private KeyPair activeKeyPair;
+  private KeyPair retiredKeyPair;
+  private JwtSigningProperties properties;
+  private JwtKeyRing jwtKeyRing;
+  private JwtParser jwtParser;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    activeKeyPair = ecKeyPair();
+    retiredKeyPair = ecKeyPair();
+    properties = new JwtSigningProperties();
+    properties.setAlgorithm("ES256");
+    properties.setActiveKeyId("2024-06");
+    properties.setJwksMaxAgeSeconds(600L);
+    properties.setKeys(
+      List.of(
+        signingKey("2024-01", null, retiredKeyPair),
+        signingKey("2024-06", activeKeyPair, activeKeyPair)
+      )
+    );
+    jwtKeyRing = new JwtKeyRing(TOKEN_SECRET, properties);
+    jwtParser = Jwts.parserBuilder().setSigningKeyResolver(jwtKeyRing).build();
+  }
+
+  @Test
+  void itShouldSignWithTheActiveKey() {
+    String token = Jwts
+      .builder()
+      .setHeaderParam(JwsHeader.KEY_ID, jwtKeyRing.getActiveKeyId())
+      .setSubject("testemail@gmail.com")
+      .signWith(jwtKeyRing.getSigningKey(), jwtKeyRing.getSignatureAlgorithm())
+      .compact();
+
+    assertThat(jwtKeyRing.getSigningKey()).isEqualTo(activeKeyPair.getPrivate());
+    assertThat(jwtParser.parseClaimsJws(token).getHeader().getKeyId())
+      .isEqualTo("2024-06");
+    assertThat(jwtParser.parseClaimsJws(token).getBody().getSubject())
+      .isEqualTo("testemail@gmail.com");
+  }
+
+  @Test
+  void itShouldVerifyTokensSignedBeforeARotation() {
+    String token = signed("2024-01", retiredKeyPair);
+
+    assertThat(jwtParser.parseClaimsJws(token).getBody().getSubject())
+      .isEqualTo("testemail@gmail.com");
+  }
+
+  @Test
+  void itShouldRejectUnknownKeyIds() throws Exception {
+    String unknownKid = signed("2023-12", ecKeyPair());
+    String wrongKey = signed("2024-06", ecKeyPair());
+
+    assertThatThrownBy(() -> jwtParser.parseClaimsJws(unknownKid))
+      .isInstanceOf(SignatureException.class)
+      .hasMessageContaining("2023-12");
+    assertThatThrownBy(() -> jwtParser.parseClaimsJws(wrongKey))
+      .isInstanceOf(SignatureException.class);
+  }
+
+  @Test
+  void itShouldRejectSharedSecretTokens() throws Exception {
+    String hs512 = Jwts
+      .builder()
+      .setSubject("testemail@gmail.com")
+      .signWith(
+        Keys.hmacShaKeyFor(TOKEN_SECRET.getBytes(StandardCharsets.UTF_8)),
+        SignatureAlgorithm.HS512
+      )
+      .compact();
+
+    assertThatThrownBy(() -> jwtParser.parseClaimsJws(hs512))
+      .isInstanceOf(SignatureException.class)
+      .hasMessageContaining("HMAC");
+
+    properties.setAcceptLegacyHs512(true);
+    JwtParser migrating = Jwts
+      .parserBuilder()
+      .setSigningKeyResolver(new JwtKeyRing(TOKEN_SECRET, properties))
+      .build();
+    assertThat(migrating.parseClaimsJws(hs512).getBody().getSubject())
+      .isEqualTo("testemail@gmail.com");
+  }
+
+  @Test
+  void itShouldRefuseToStartWithoutTheActivePrivateKey() {
+    properties.setActiveKeyId("2024-01");
+
+    assertThatThrownBy(() -> new JwtKeyRing(TOKEN_SECRET, properties))
+      .isInstanceOf(IllegalStateException.class)
+      .hasMessageContaining("2024-01");
+  }
+
+  @Test
+  void itShouldPublishEveryPublicKeyWithCacheControl() throws Exception {
+    MockMvcBuilders
+      .standaloneSetup(new JwksController(jwtKeyRing, properties))
+      .build()
+      .perform(get("/.well-known/jwks.json"))
+      .andExpect(status().isOk())
+      .andExpect(header().string("Cache-Control", "max-age=600, public"))
+      .andExpect(jsonPath("$.keys[*].kid", contains("2024-01", "2024-06")))
+      .andExpect(jsonPath("$.keys[0].d").doesNotExist());
+  }
+
+  private static String signed(String keyId, KeyPair keyPair) {
+    return Jwts
+      .builder()
+      .setHeaderParam(JwsHeader.KEY_ID, keyId)
+      .setSubject("testemail@gmail.com")
+      .signWith(keyPair.getPrivate(), SignatureAlgorithm.ES256)
+      .compact();
+  }
+
+  private static JwtSigningProperties.SigningKey signingKey(
+    String id,
+    KeyPair privateKeyPair,
+    KeyPair publicKeyPair
+  ) {
+    JwtSigningProperties.SigningKey signingKey = new JwtSigningProperties.SigningKey();
+    signingKey.setId(id);
+    if (privateKeyPair != null) signingKey.setPrivateKey(
+      Base64.getEncoder().encodeToString(privateKeyPair.getPrivate().getEncoded())
+    );
+    signingKey.setPublicKey(
+      Base64.getEncoder().encodeToString(publicKeyPair.getPublic().getEncoded())
+    );
+    return signingKey;
+  }
+
+  private static KeyPair ecKeyPair() throws Exception {
+    KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+    generator.initialize(new ECGenParameterSpec("secp256r1"));
+    return generator.generateKeyPair();
+  }
+}
@@ -0,0 +1,39 @@
+package com.project.template.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.project.template.dto.LoginRequest;
+import db.migration.V1__CreateUserTable;
+import org.junit.jupiter.api.Test;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.TypeReference;
+import org.springframework.aot.hint.predicate.RuntimeHintsPredicates;
+
+class NativeImageHintsTests {
+
+  private final RuntimeHints hints = new RuntimeHints();
+
+  @Test
+  void itShouldRegisterNativeImageHints() {
+    new NativeImageHints().registerHints(hints, getClass().getClassLoader());
+
+    assertThat(RuntimeHintsPredicates.reflection().onType(LoginRequest.class))
+      .accepts(hints);
+    assertThat(
+      RuntimeHintsPredicates.reflection().onType(V1__CreateUserTable.class)
+    )
+      .accepts(hints);
+    assertThat(
+      RuntimeHintsPredicates
+        .reflection()
+        .onType(TypeReference.of("io.jsonwebtoken.gson.io.GsonSerializer"))
+    )
+      .accepts(hints);
+    assertThat(
+      RuntimeHintsPredicates
+        .resource()
+        .forResource("META-INF/services/io.jsonwebtoken.io.Serializer")
+    )
+      .accepts(hints);
+  }
+}
@@ -0,0 +1,123 @@
+package com.project.template.config;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.util.AntPathMatcher;
+
+/**
+ * Compiled public route lookup against the ant patterns checked one after the
+ * other, over path mixes seen in production: mostly API calls, mostly static
+ * assets (a browser loading Swagger UI) and bots probing random files.
+ *
+ * mvn -Pbenchmark test -Dtest=PublicRouteMatcherBenchmark
+ */
+@Tag("benchmark")
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PublicRouteMatcherBenchmark {
+
+  private static final int PATHS_PER_MIX = 1024;
+
+  private static final List<String> API_PATHS = List.of(
+    "/api/v1/users/me",
+    "/api/v1/users/login",
+    "/api/v1/users/refresh",
+    "/api/v1/users/introspect",
+    "/api/v1/users/42"
+  );
+  private static final List<String> ASSET_PATHS = List.of(
+    "/swagger-ui/index.html",
+    "/swagger-ui/swagger-ui-bundle.js",
+    "/swagger-ui/swagger-ui.css",
+    "/v3/api-docs/swagger-config",
+    "/favicon.ico",
+    "/static/img/logo.png"
+  );
+  private static final List<String> BOT_PATHS = List.of(
+    "/wp-login.php",
+    "/.env",
+    "/admin/config.bak",
+    "/cgi-bin/luci",
+    "/vendor/phpunit/phpunit/src/Util/PHP/eval-stdin.php"
+  );
+
+  @Param({ "api", "assets", "bots" })
+  public String mix;
+
+  private final PublicRouteMatcher publicRouteMatcher = new PublicRouteMatcher();
+  private final AntPathMatcher antPathMatcher = new AntPathMatcher();
+  private String[] paths;
+  private int next;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    List<String> majority = switch (mix) {
+      case "assets" -> ASSET_PATHS;
+      case "bots" -> BOT_PATHS;
+      default -> API_PATHS;
+    };
+    Random random = new Random(42);
+    List<String> sample = new ArrayList<>(PATHS_PER_MIX);
+    for (int i = 0; i < PATHS_PER_MIX; i++) {
+      // 80% from the dominant group, the rest from the other two
+      List<String> group = random.nextInt(10) < 8
+        ? majority
+        : List.of(API_PATHS, ASSET_PATHS, BOT_PATHS).get(random.nextInt(3));
+      sample.add(group.get(random.nextInt(group.size())));
+    }
+    Collections.shuffle(sample, random);
+    paths = sample.toArray(String[]::new);
+  }
+
+  @Benchmark
+  public boolean compiledMatcher() {
+    return publicRouteMatcher.matches(nextPath());
+  }
+
+  @Benchmark
+  public boolean antPatterns() {
+    String path = nextPath();
+    for (String pattern : PublicRouteMatcher.PUBLIC_ROUTES) {
+      if (antPathMatcher.match(pattern, path)) return true;
+    }
+    return false;
+  }
+
+  private String nextPath() {
+    next = (next + 1) & (PATHS_PER_MIX - 1);
+    return paths[next];
+  }
+
+  @Test
+  void run() throws Exception {
+    new Runner(
+      new OptionsBuilder()
+        .include(PublicRouteMatcherBenchmark.class.getName())
+        .build()
+    )
+      .run();
+  }
+}
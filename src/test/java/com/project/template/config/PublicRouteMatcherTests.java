@@ -0,0 +1,86 @@
+package com.project.template.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.util.AntPathMatcher;
+
+class PublicRouteMatcherTests {
+
+  static final List<String> PATHS = List.of(
+    "/",
+    "/error",
+    "/favicon.ico",
+    "/favicon.ico/x",
+    "/.well-known/jwks.json",
+    "/actuator/health/readiness",
+    "/actuator/health",
+    "/actuator/prometheus",
+    "/swagger-ui.html",
+    "/swagger-ui/index.html",
+    "/swagger-ui/swagger-ui-bundle.js",
+    "/swagger-ui",
+    "/swagger-uix/index",
+    "/v3/api-docs",
+    "/v3/api-docs/swagger-config",
+    "/v3/api",
+    "/openapi/api-docs.json",
+    "/webjars/jquery/3.6.0/jquery.min.js",
+    "/swagger-resources",
+    "/swagger-resources/configuration/ui",
+    "/static/img/logo.png",
+    "/logo.png",
+    "/img/logo.png.bak",
+    "/css/site.css",
+    "/index.html",
+    "/.png",
+    "/api/v1/users/me",
+    "/api/v1/users/me.json",
+    "/api/v1/users/login",
+    "/api/v1/users/introspect",
+    "/api/v1/users/42"
+  );
+
+  private final PublicRouteMatcher publicRouteMatcher = new PublicRouteMatcher();
+
+  @Test
+  void itShouldMatchLikeTheAntPatterns() {
+    AntPathMatcher antPathMatcher = new AntPathMatcher();
+
+    assertThat(PATHS)
+      .allSatisfy(path ->
+        assertThat(publicRouteMatcher.matches(path))
+          .as(path)
+          .isEqualTo(
+            PublicRouteMatcher.PUBLIC_ROUTES
+              .stream()
+              .anyMatch(pattern -> antPathMatcher.match(pattern, path))
+          )
+      );
+  }
+
+  @Test
+  void itShouldMatchRequestsWithoutTheContextPath() {
+    MockHttpServletRequest request = new MockHttpServletRequest(
+      "GET",
+      "/auth/favicon.ico"
+    );
+    request.setContextPath("/auth");
+
+    assertThat(publicRouteMatcher.matches(request)).isTrue();
+
+    request.setRequestURI("/auth/api/v1/users/me");
+    assertThat(publicRouteMatcher.matches(request)).isFalse();
+  }
+
+  @Test
+  void itShouldRejectPatternsItCannotCompile() {
+    assertThatThrownBy(() -> new PublicRouteMatcher(List.of("/api/*/users")))
+      .isInstanceOf(IllegalArgumentException.class);
+    assertThatThrownBy(() -> new PublicRouteMatcher(List.of("/**/*.*")))
+      .isInstanceOf(IllegalArgumentException.class);
+  }
+}
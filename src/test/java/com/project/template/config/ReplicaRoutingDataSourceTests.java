@@ -0,0 +1,127 @@
+package com.project.template.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.sql.SQLException;
+import java.util.Map;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+class ReplicaRoutingDataSourceTests {
+
+  private static final String REPLICA = "replica-0";
+
+  private SimpleMeterRegistry meterRegistry;
+  private ReplicaRoutingDataSource routingDataSource;
+  private JdbcTemplate jdbcTemplate;
+  private TransactionTemplate readOnlyTransaction;
+  private TransactionTemplate writeTransaction;
+
+  @BeforeEach
+  void setUp() {
+    meterRegistry = new SimpleMeterRegistry();
+    routingDataSource =
+      new ReplicaRoutingDataSource(
+        database("primary"),
+        Map.of(REPLICA, database("replica")),
+        meterRegistry
+      );
+    configure(routingDataSource);
+  }
+
+  @Test
+  @DisplayName("It should route read-only transactions to the replica.")
+  void itShouldRouteReadOnlyTransactionsToReplica() {
+    String readOnlyNode = readOnlyTransaction.execute(status -> currentNode());
+    String writeNode = writeTransaction.execute(status -> currentNode());
+
+    assertThat(readOnlyNode).isEqualTo("replica");
+    assertThat(writeNode).isEqualTo("primary");
+    assertThat(
+      meterRegistry
+        .get("datasource.routing.connections")
+        .tag("pool", REPLICA)
+        .counter()
+        .count()
+    )
+      .isEqualTo(1);
+  }
+
+  @Test
+  @DisplayName("It should read recently written keys from the primary.")
+  void itShouldReadRecentWritesFromPrimary() {
+    DataSourceRoutingContext routingContext = new DataSourceRoutingContext(
+      new ReplicaRoutingProperties()
+    );
+    routingContext.markWritten("testemail@gmail.com");
+
+    String writtenKeyNode = readOnlyTransaction.execute(status ->
+      routingContext.read("testemail@gmail.com", this::currentNode)
+    );
+    String otherKeyNode = readOnlyTransaction.execute(status ->
+      routingContext.read("other@gmail.com", this::currentNode)
+    );
+
+    assertThat(writtenKeyNode).isEqualTo("primary");
+    assertThat(otherKeyNode).isEqualTo("replica");
+  }
+
+  @Test
+  @DisplayName("It should fall back to the primary when the replica is down.")
+  void itShouldFallBackToPrimaryWhenReplicaIsDown() {
+    DriverManagerDataSource brokenReplica = new DriverManagerDataSource() {
+      @Override
+      public java.sql.Connection getConnection() throws SQLException {
+        throw new SQLException("Connection refused");
+      }
+    };
+    routingDataSource =
+      new ReplicaRoutingDataSource(
+        database("primary"),
+        Map.of(REPLICA, brokenReplica),
+        meterRegistry
+      );
+    configure(routingDataSource);
+
+    String readOnlyNode = readOnlyTransaction.execute(status -> currentNode());
+
+    assertThat(readOnlyNode).isEqualTo("primary");
+    assertThat(routingDataSource.isHealthy(REPLICA)).isFalse();
+
+    routingDataSource.checkReplicas();
+    assertThat(routingDataSource.isHealthy(REPLICA)).isFalse();
+  }
+
+  private void configure(ReplicaRoutingDataSource dataSource) {
+    DataSource lazyDataSource = new LazyConnectionDataSourceProxy(dataSource);
+    DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(
+      lazyDataSource
+    );
+    jdbcTemplate = new JdbcTemplate(lazyDataSource);
+    readOnlyTransaction = new TransactionTemplate(transactionManager);
+    readOnlyTransaction.setReadOnly(true);
+    writeTransaction = new TransactionTemplate(transactionManager);
+  }
+
+  private String currentNode() {
+    return jdbcTemplate.queryForObject("select name from node", String.class);
+  }
+
+  private static DataSource database(String name) {
+    DriverManagerDataSource dataSource = new DriverManagerDataSource(
+      "jdbc:h2:mem:" + name + "_" + System.nanoTime() + ";DB_CLOSE_DELAY=-1"
+    );
+    JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+    jdbcTemplate.execute("create table node (name varchar(32))");
+    jdbcTemplate.update("insert into node values (?)", name);
+    return dataSource;
+  }
+}
@@ -0,0 +1,66 @@
+package com.project.template.config;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.project.template.model.User;
+import com.project.template.service.TokenProvider;
+import com.project.template.utils.SecurityCipher;
+import com.project.template.utils.TokenVersionRegistry;
+import jakarta.servlet.http.Cookie;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+@SpringBootTest(properties = "authentication.auth.stateless=true")
+@AutoConfigureMockMvc
+class StatelessAuthenticationTests {
+
+  @Autowired
+  private MockMvc mockMvc;
+
+  @Autowired
+  private TokenProvider tokenProvider;
+
+  @Autowired
+  private TokenVersionRegistry tokenVersionRegistry;
+
+  @Test
+  void itShouldAuthenticateFromTheTokenClaimsAlone() throws Exception {
+    // never stored, a database lookup would fail
+    User user = User
+      .builder()
+      .id(4242L)
+      .name("Stateless")
+      .email("stateless@gmail.com")
+      .tokenVersion(0)
+      .build();
+    Cookie accessToken = accessTokenCookie(user);
+
+    mockMvc
+      .perform(get("/api/v1/users/me").cookie(accessToken))
+      .andExpect(status().isOk())
+      .andExpect(jsonPath("$.id").value(4242))
+      .andExpect(jsonPath("$.email").value("stateless@gmail.com"));
+
+    tokenVersionRegistry.invalidateBelow(4242L, 1);
+    mockMvc
+      .perform(get("/api/v1/users/me").cookie(accessToken))
+      .andExpect(status().isUnauthorized());
+
+    user.setTokenVersion(1);
+    mockMvc
+      .perform(get("/api/v1/users/me").cookie(accessTokenCookie(user)))
+      .andExpect(status().isOk());
+  }
+
+  private Cookie accessTokenCookie(User user) {
+    return new Cookie(
+      "accessToken",
+      SecurityCipher.encrypt(tokenProvider.generateAccessToken(user).getTokenValue())
+    );
+  }
+}
@@ -0,0 +1,202 @@
+package com.project.template.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.project.template.model.User;
+import com.project.template.repository.UserRepository;
+import com.project.template.service.TokenProvider;
+import com.project.template.utils.SecurityCipher;
+import io.jsonwebtoken.Jwts;
+import jakarta.servlet.http.Cookie;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.Date;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+
+@SpringBootTest(
+  properties = {
+    "authentication.auth.slidingRenewal.enabled=true",
+    "authentication.auth.slidingRenewal.windowMsec=600000",
+    "authentication.auth.slidingRenewal.jitterMsec=0",
+  }
+)
+@AutoConfigureMockMvc
+class TokenAuthenticationFilterTests {
+
+  private static final String EMAIL = "sliding@gmail.com";
+
+  @Autowired
+  private MockMvc mockMvc;
+
+  @Autowired
+  private UserRepository userRepository;
+
+  @Autowired
+  private TokenProvider tokenProvider;
+
+  @Autowired
+  private JwtKeyRing jwtKeyRing;
+
+  @Value("${authentication.auth.refreshTokenExpirationMsec}")
+  private long refreshTokenExpirationMsec;
+
+  private User user;
+
+  @BeforeEach
+  void setUp() {
+    user = userRepository.save(
+      User.builder().name("Sliding").password("password").email(EMAIL).build()
+    );
+  }
+
+  @AfterEach
+  void tearDown() {
+    userRepository.deleteAll(userRepository.findAllByEmailIn(List.of(EMAIL)));
+  }
+
+  @Test
+  void itShouldRenewATokenCloseToExpiry() throws Exception {
+    String renewedCookie = mockMvc
+      .perform(get("/api/v1/users/me").cookie(accessTokenCookie(expiringIn(60_000))))
+      .andExpect(status().isOk())
+      .andReturn()
+      .getResponse()
+      .getHeader(HttpHeaders.SET_COOKIE);
+
+    assertThat(renewedCookie).startsWith("accessToken=").containsPattern("Max-Age=3[56]\\d\\d;");
+    String renewed = SecurityCipher.decrypt(
+      renewedCookie.substring("accessToken=".length(), renewedCookie.indexOf(';'))
+    );
+    assertThat(tokenProvider.getUsernameFromToken(renewed)).isEqualTo(EMAIL);
+    assertThat(tokenProvider.getExpiryDateFromToken(renewed))
+      .isAfter(tokenProvider.getExpiryDateFromToken(expiringIn(60_000)));
+  }
+
+  @Test
+  void itShouldKeepTheSessionStartAcrossRenewals() throws Exception {
+    Date loggedInAt = new Date(System.currentTimeMillis() - 3_600_000);
+    String renewedCookie = mockMvc
+      .perform(
+        get("/api/v1/users/me")
+          .cookie(accessTokenCookie(expiringIn(60_000, loggedInAt)))
+      )
+      .andExpect(status().isOk())
+      .andReturn()
+      .getResponse()
+      .getHeader(HttpHeaders.SET_COOKIE);
+
+    String renewed = SecurityCipher.decrypt(
+      renewedCookie.substring("accessToken=".length(), renewedCookie.indexOf(';'))
+    );
+    assertThat(tokenProvider.authenticateToken(renewed).orElseThrow().getAuthTime())
+      .isEqualTo(
+        LocalDateTime.ofInstant(
+          loggedInAt.toInstant().truncatedTo(ChronoUnit.SECONDS),
+          ZoneId.systemDefault()
+        )
+      );
+  }
+
+  @Test
+  void itShouldNotRenewPastTheRefreshTokenLifetime() throws Exception {
+    Date loggedInAt = new Date(
+      System.currentTimeMillis() - refreshTokenExpirationMsec
+    );
+    mockMvc
+      .perform(
+        get("/api/v1/users/me")
+          .cookie(accessTokenCookie(expiringIn(60_000, loggedInAt)))
+      )
+      .andExpect(status().isOk())
+      .andExpect(result ->
+        assertThat(result.getResponse().getHeader(HttpHeaders.SET_COOKIE)).isNull()
+      );
+  }
+
+  @Test
+  void itShouldKeepATokenOutsideTheWindow() throws Exception {
+    String token = tokenProvider.generateAccessToken(EMAIL).getTokenValue();
+    mockMvc
+      .perform(get("/api/v1/users/me").cookie(accessTokenCookie(token)))
+      .andExpect(status().isOk())
+      .andExpect(result ->
+        assertThat(result.getResponse().getHeader(HttpHeaders.SET_COOKIE)).isNull()
+      );
+  }
+
+  @Test
+  void itShouldReadTheAccessCookieFromAnyCookieHeader() throws Exception {
+    String token = tokenProvider.generateAccessToken(EMAIL).getTokenValue();
+    mockMvc
+      .perform(
+        get("/api/v1/users/me")
+          .header(HttpHeaders.COOKIE, "theme=dark")
+          .header(
+            HttpHeaders.COOKIE,
+            "accessToken=" + SecurityCipher.encrypt(token)
+          )
+      )
+      .andExpect(status().isOk());
+  }
+
+  @Test
+  void itShouldRejectTokensOfAnOlderVersion() throws Exception {
+    String subjectOnly = tokenProvider.generateAccessToken(EMAIL).getTokenValue();
+    String versionZero = tokenProvider.generateAccessToken(user).getTokenValue();
+    user.setTokenVersion(1);
+    userRepository.save(user);
+
+    mockMvc
+      .perform(get("/api/v1/users/me").cookie(accessTokenCookie(subjectOnly)))
+      .andExpect(status().isUnauthorized());
+    mockMvc
+      .perform(get("/api/v1/users/me").cookie(accessTokenCookie(versionZero)))
+      .andExpect(status().isUnauthorized());
+    mockMvc
+      .perform(
+        get("/api/v1/users/me")
+          .cookie(accessTokenCookie(tokenProvider.generateAccessToken(user).getTokenValue()))
+      )
+      .andExpect(status().isOk());
+  }
+
+  @Test
+  void itShouldNotRenewRejectedTokens() throws Exception {
+    mockMvc
+      .perform(get("/api/v1/users/me").cookie(accessTokenCookie(expiringIn(-1_000))))
+      .andExpect(status().isUnauthorized())
+      .andExpect(result ->
+        assertThat(result.getResponse().getHeader(HttpHeaders.SET_COOKIE)).isNull()
+      );
+  }
+
+  private String expiringIn(long msec) {
+    return expiringIn(msec, new Date());
+  }
+
+  private String expiringIn(long msec, Date issuedAt) {
+    return Jwts
+      .builder()
+      .setSubject(EMAIL)
+      .setIssuedAt(issuedAt)
+      .setExpiration(new Date(System.currentTimeMillis() + msec))
+      .signWith(jwtKeyRing.getSigningKey(), jwtKeyRing.getSignatureAlgorithm())
+      .compact();
+  }
+
+  private static Cookie accessTokenCookie(String token) {
+    return new Cookie("accessToken", SecurityCipher.encrypt(token));
+  }
+}
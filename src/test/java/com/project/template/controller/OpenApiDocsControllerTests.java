@@ -0,0 +1,93 @@
+package com.project.template.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+class OpenApiDocsControllerTests {
+
+  private static final String API_DOCS = "/openapi/api-docs.json";
+  private static final byte[] SPEC =
+    "{\"openapi\":\"3.0.1\",\"paths\":{}}".getBytes(StandardCharsets.UTF_8);
+
+  private MockMvc mockMvc;
+  private String eTag;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    mockMvc =
+      MockMvcBuilders
+        .standaloneSetup(new OpenApiDocsController(SPEC, gzip(SPEC)))
+        .build();
+    eTag =
+      mockMvc
+        .perform(get(API_DOCS))
+        .andExpect(status().isOk())
+        .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=3600, public"))
+        .andExpect(content().bytes(SPEC))
+        .andReturn()
+        .getResponse()
+        .getHeader(HttpHeaders.ETAG);
+  }
+
+  @Test
+  void itShouldAnswerNotModifiedForAMatchingETag() throws Exception {
+    for (String ifNoneMatch : new String[] { eTag, "W/" + eTag, "\"other\", " + eTag }) {
+      mockMvc
+        .perform(get(API_DOCS).header(HttpHeaders.IF_NONE_MATCH, ifNoneMatch))
+        .andExpect(status().isNotModified())
+        .andExpect(header().string(HttpHeaders.ETAG, eTag))
+        .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=3600, public"))
+        .andExpect(content().bytes(new byte[0]));
+    }
+    mockMvc
+      .perform(get(API_DOCS).header(HttpHeaders.IF_NONE_MATCH, "\"other\""))
+      .andExpect(status().isOk());
+  }
+
+  @Test
+  void itShouldServeTheGzipVariantWhenAccepted() throws Exception {
+    byte[] body = mockMvc
+      .perform(get(API_DOCS).header(HttpHeaders.ACCEPT_ENCODING, "br, gzip"))
+      .andExpect(status().isOk())
+      .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+      .andExpect(header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING))
+      .andReturn()
+      .getResponse()
+      .getContentAsByteArray();
+
+    assertThat(gunzip(body)).isEqualTo(SPEC);
+    mockMvc
+      .perform(get(API_DOCS).header(HttpHeaders.ACCEPT_ENCODING, "identity"))
+      .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING))
+      .andExpect(content().bytes(SPEC));
+  }
+
+  private static byte[] gzip(byte[] bytes) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+      gzip.write(bytes);
+    }
+    return out.toByteArray();
+  }
+
+  private static byte[] gunzip(byte[] bytes) throws IOException {
+    try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(bytes))) {
+      return gzip.readAllBytes();
+    }
+  }
+}
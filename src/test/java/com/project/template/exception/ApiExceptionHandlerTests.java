@@ -0,0 +1,68 @@
+package com.project.template.exception;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import java.time.LocalDateTime;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+class ApiExceptionHandlerTests {
+
+  private final ApiExceptionHandler apiExceptionHandler = new ApiExceptionHandler();
+
+  @Test
+  void itShouldNotCaptureStackTracesForDomainExceptions() {
+    List<DomainException> exceptions = List.of(
+      new BadRequestException("bad"),
+      new EntityExistsException("exists"),
+      new OperationNotAllowedException("not allowed"),
+      new ResourceNotFoundException("not found"),
+      new SecurityCipherDecodeException("malformed")
+    );
+
+    assertThat(exceptions)
+      .allSatisfy(exception -> assertThat(exception.getStackTrace()).isEmpty());
+  }
+
+  @Test
+  void itShouldMapSecurityCipherDecodeExceptionToUnauthorized() {
+    ResponseEntity<Object> response = apiExceptionHandler.handleSecurityCipherDecodeException(
+      new SecurityCipherDecodeException("Malformed token")
+    );
+
+    assertThat(response.getStatusCode()).isEqualTo(HttpStatus.UNAUTHORIZED);
+    assertThat(((ApiError) response.getBody()).getErrors())
+      .containsExactly("Malformed token");
+  }
+
+  @Test
+  void itShouldHideUnexpectedErrorDetails() {
+    ResponseEntity<Object> response = apiExceptionHandler.handleUnexpectedException(
+      new IllegalStateException("connection string with secrets")
+    );
+
+    assertThat(response.getStatusCode())
+      .isEqualTo(HttpStatus.INTERNAL_SERVER_ERROR);
+    assertThat(((ApiError) response.getBody()).getMessage())
+      .isEqualTo("Unexpected error");
+  }
+
+  @Test
+  void itShouldKeepTheTimestampFormat() throws Exception {
+    ObjectMapper objectMapper = new ObjectMapper()
+      .registerModule(new JavaTimeModule());
+    LocalDateTime timestamp = LocalDateTime.of(2023, 3, 14, 15, 9, 26, 535);
+    ApiError apiError = ApiError.builder().code(400).timestamp(timestamp).build();
+
+    String first = objectMapper.writeValueAsString(apiError);
+    apiError.setTimestamp(timestamp.plusNanos(1000));
+    String second = objectMapper.writeValueAsString(apiError);
+
+    assertThat(first).contains("\"timestamp\":\"14-03-2023 03:09:26\"");
+    assertThat(second).isEqualTo(first);
+  }
+}
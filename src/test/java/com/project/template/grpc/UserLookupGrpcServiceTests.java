@@ -0,0 +1,225 @@
+package com.project.template.grpc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import com.project.template.dto.TokenIntrospectionResult;
+import com.project.template.grpc.v1.BatchValidateTokenRequest;
+import com.project.template.grpc.v1.BatchValidateTokenResponse;
+import com.project.template.grpc.v1.GetUsersRequest;
+import com.project.template.grpc.v1.GetUsersResponse;
+import com.project.template.grpc.v1.UserLookupGrpc;
+import com.project.template.grpc.v1.UserMessage;
+import com.project.template.grpc.v1.ValidateTokenRequest;
+import com.project.template.grpc.v1.ValidateTokenResponse;
+import com.project.template.model.User;
+import com.project.template.service.UserService;
+import io.grpc.ClientInterceptor;
+import io.grpc.ManagedChannel;
+import io.grpc.Metadata;
+import io.grpc.Server;
+import io.grpc.Status;
+import io.grpc.ServerInterceptors;
+import io.grpc.StatusRuntimeException;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.stub.MetadataUtils;
+import io.grpc.stub.StreamObserver;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class UserLookupGrpcServiceTests {
+
+  private static final String AUTH_TOKEN = "grpc-secret";
+
+  @Mock
+  private UserService userService;
+
+  private String serverName;
+
+  private Server server;
+
+  private ManagedChannel channel;
+
+  private final User user = User
+    .builder()
+    .id(1L)
+    .email("testemail@gmail.com")
+    .name("Test")
+    .password("$2a$10$hash")
+    .build();
+
+  @BeforeEach
+  void setUp() throws Exception {
+    serverName = InProcessServerBuilder.generateName();
+    server =
+      InProcessServerBuilder
+        .forName(serverName)
+        .directExecutor()
+        .addService(
+          ServerInterceptors.intercept(
+            new UserLookupGrpcService(userService),
+            new GrpcAuthInterceptor(AUTH_TOKEN)
+          )
+        )
+        .build()
+        .start();
+    channel =
+      InProcessChannelBuilder
+        .forName(serverName)
+        .directExecutor()
+        .intercept(authorization("Bearer " + AUTH_TOKEN))
+        .build();
+  }
+
+  @AfterEach
+  void tearDown() throws InterruptedException {
+    channel.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+    server.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+  }
+
+  @Test
+  void itShouldValidateATokenWithoutThePasswordHash() {
+    when(userService.introspect(List.of("token")))
+      .thenReturn(List.of(TokenIntrospectionResult.active(user)));
+
+    ValidateTokenResponse response = UserLookupGrpc
+      .newBlockingStub(channel)
+      .validateToken(ValidateTokenRequest.newBuilder().setToken("token").build());
+
+    assertThat(response.getActive()).isTrue();
+    assertThat(response.getUser())
+      .isEqualTo(
+        UserMessage
+          .newBuilder()
+          .setId(1L)
+          .setEmail("testemail@gmail.com")
+          .setName("Test")
+          .build()
+      );
+    assertThat(response.toString()).doesNotContain("$2a$");
+  }
+
+  @Test
+  void itShouldRejectAnEmptyToken() {
+    assertThatThrownBy(() ->
+        UserLookupGrpc
+          .newBlockingStub(channel)
+          .validateToken(ValidateTokenRequest.getDefaultInstance())
+      )
+      .isInstanceOf(StatusRuntimeException.class)
+      .extracting(ex -> ((StatusRuntimeException) ex).getStatus().getCode())
+      .isEqualTo(Status.Code.INVALID_ARGUMENT);
+  }
+
+  @Test
+  void itShouldAnswerEachStreamedBatchInOrder() throws Exception {
+    when(userService.introspect(List.of("valid", "forged")))
+      .thenReturn(
+        List.of(
+          TokenIntrospectionResult.active(user),
+          TokenIntrospectionResult.inactive("Token invalid!")
+        )
+      );
+    when(userService.introspect(List.of("unknown")))
+      .thenReturn(List.of(TokenIntrospectionResult.inactive("User not found!")));
+
+    List<BatchValidateTokenResponse> responses = new CopyOnWriteArrayList<>();
+    CompletableFuture<Void> completed = new CompletableFuture<>();
+    StreamObserver<BatchValidateTokenRequest> requests = UserLookupGrpc
+      .newStub(channel)
+      .batchValidateToken(
+        new StreamObserver<>() {
+          @Override
+          public void onNext(BatchValidateTokenResponse response) {
+            responses.add(response);
+          }
+
+          @Override
+          public void onError(Throwable t) {
+            completed.completeExceptionally(t);
+          }
+
+          @Override
+          public void onCompleted() {
+            completed.complete(null);
+          }
+        }
+      );
+    requests.onNext(
+      BatchValidateTokenRequest.newBuilder().addTokens("valid").addTokens("forged").build()
+    );
+    requests.onNext(BatchValidateTokenRequest.newBuilder().addTokens("unknown").build());
+    requests.onCompleted();
+    completed.get(5, TimeUnit.SECONDS);
+
+    assertThat(responses).hasSize(2);
+    assertThat(responses.get(0).getResultsList())
+      .extracting(ValidateTokenResponse::getActive)
+      .containsExactly(true, false);
+    assertThat(responses.get(0).getResults(1).getError()).isEqualTo("Token invalid!");
+    assertThat(responses.get(1).getResults(0).getError()).isEqualTo("User not found!");
+  }
+
+  @Test
+  void itShouldLookUpUsersInOneCall() {
+    when(userService.findAllById(List.of(1L, 2L))).thenReturn(List.of(user));
+
+    GetUsersResponse response = UserLookupGrpc
+      .newBlockingStub(channel)
+      .getUsers(GetUsersRequest.newBuilder().addIds(1L).addIds(2L).build());
+
+    assertThat(response.getUsersList())
+      .extracting(UserMessage::getEmail)
+      .containsExactly("testemail@gmail.com");
+    verify(userService).findAllById(List.of(1L, 2L));
+  }
+
+  @Test
+  void itShouldRejectCallsWithoutCredentials() {
+    assertUnauthenticated(null);
+    assertUnauthenticated("Bearer wrong-secret");
+  }
+
+  private void assertUnauthenticated(String authorization) {
+    InProcessChannelBuilder builder = InProcessChannelBuilder
+      .forName(serverName)
+      .directExecutor();
+    if (authorization != null) builder.intercept(authorization(authorization));
+    ManagedChannel unauthenticated = builder.build();
+    try {
+      assertThatThrownBy(() ->
+          UserLookupGrpc
+            .newBlockingStub(unauthenticated)
+            .getUsers(GetUsersRequest.newBuilder().addIds(1L).build())
+        )
+        .isInstanceOfSatisfying(
+          StatusRuntimeException.class,
+          ex ->
+            assertThat(ex.getStatus().getCode())
+              .isEqualTo(Status.Code.UNAUTHENTICATED)
+        );
+      verifyNoInteractions(userService);
+    } finally {
+      unauthenticated.shutdownNow();
+    }
+  }
+
+  private static ClientInterceptor authorization(String value) {
+    Metadata headers = new Metadata();
+    headers.put(GrpcAuthInterceptor.AUTHORIZATION, value);
+    return MetadataUtils.newAttachHeadersInterceptor(headers);
+  }
+}
@@ -0,0 +1,92 @@
+package com.project.template.limit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class AdaptiveConcurrencyLimitTests {
+
+  private static final long BASE_LATENCY = TimeUnit.MILLISECONDS.toNanos(10);
+
+  private final AtomicLong clock = new AtomicLong();
+  private ConcurrencyLimitProperties properties;
+  private AdaptiveConcurrencyLimit limit;
+
+  @BeforeEach
+  void setUp() {
+    properties = new ConcurrencyLimitProperties();
+    properties.setInitialLimit(20);
+    limit = new AdaptiveConcurrencyLimit(properties, clock::get);
+  }
+
+  @Test
+  void itShouldKeepPartOfTheLimitForAuthenticatedReads() {
+    assertThat(limit.threshold(Priority.LOW)).isEqualTo(10);
+    assertThat(limit.threshold(Priority.NORMAL)).isEqualTo(18);
+    assertThat(limit.threshold(Priority.HIGH)).isEqualTo(20);
+
+    for (int i = 0; i < 10; i++) assertThat(limit.tryAcquire(Priority.LOW)).isTrue();
+    assertThat(limit.tryAcquire(Priority.LOW)).isFalse();
+    for (int i = 0; i < 8; i++) assertThat(limit.tryAcquire(Priority.NORMAL)).isTrue();
+    assertThat(limit.tryAcquire(Priority.NORMAL)).isFalse();
+    assertThat(limit.tryAcquire(Priority.HIGH)).isTrue();
+    assertThat(limit.tryAcquire(Priority.HIGH)).isTrue();
+    assertThat(limit.tryAcquire(Priority.HIGH)).isFalse();
+    assertThat(limit.getInFlight()).isEqualTo(20);
+  }
+
+  /**
+   * A server with 60 workers under unbounded offered load: requests past the
+   * workers queue, so latency grows with the in-flight count. The limit has to
+   * find the capacity and keep the queueing delay within tolerance.
+   */
+  @Test
+  void itShouldConvergeOnCapacityAndBoundLatency() {
+    simulateOverload(60, 2000);
+    assertThat(limit.getLimit()).isBetween(60, (int) (60 * properties.getTolerance() * 1.25));
+    assertThat(latency(60, limit.getLimit())).isLessThanOrEqualTo(2 * BASE_LATENCY);
+  }
+
+  @Test
+  void itShouldShrinkWhenCapacityDrops() {
+    simulateOverload(60, 2000);
+    int before = limit.getLimit();
+    simulateOverload(15, 100);
+    assertThat(limit.getLimit()).isLessThan(before / 2).isGreaterThanOrEqualTo(15);
+  }
+
+  @Test
+  void itShouldNotGrowWhileMostOfTheLimitIsUnused() {
+    for (int window = 0; window < 100; window++) {
+      runWindow(5, 60);
+    }
+    assertThat(limit.getLimit()).isEqualTo(20);
+  }
+
+  private void simulateOverload(int capacity, int windows) {
+    for (int window = 0; window < windows; window++) {
+      runWindow(limit.getLimit(), capacity);
+    }
+  }
+
+  /**
+   * Admits concurrency requests at once and completes them at the end of the
+   * window with the latency the simulated server would have.
+   */
+  private void runWindow(int concurrency, int capacity) {
+    int admitted = 0;
+    while (admitted < concurrency && limit.tryAcquire(Priority.HIGH)) admitted++;
+    long latency = latency(capacity, admitted);
+    clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(properties.getWindowMsec()));
+    for (int i = 0; i < admitted; i++) {
+      limit.release(Priority.HIGH, clock.get() - latency);
+    }
+  }
+
+  private static long latency(int capacity, int inFlight) {
+    return (long) (BASE_LATENCY * Math.max(1.0, (double) inFlight / capacity));
+  }
+}
@@ -0,0 +1,118 @@
+package com.project.template.limit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+class ConcurrencyLimitFilterTests {
+
+  private ConcurrencyLimitProperties properties;
+  private AdaptiveConcurrencyLimit limit;
+  private ConcurrencyLimitFilter filter;
+
+  @BeforeEach
+  void setUp() {
+    properties = new ConcurrencyLimitProperties();
+    properties.setInitialLimit(4);
+    limit = new AdaptiveConcurrencyLimit(properties);
+    filter = new ConcurrencyLimitFilter(limit, properties, "accessToken");
+  }
+
+  @Test
+  void itShouldRankAuthenticatedReadsAboveSignupAndLogin() {
+    MockHttpServletRequest me = request("GET", "/api/v1/users/me");
+    me.addHeader("Cookie", "theme=dark; accessToken=token");
+    MockHttpServletRequest bearer = request("GET", "/api/v1/users/me");
+    bearer.addHeader("Authorization", "Bearer token");
+    MockHttpServletRequest emptyCookie = request("GET", "/api/v1/users/me");
+    emptyCookie.addHeader("Cookie", "accessToken=; xaccessToken=token");
+
+    assertThat(filter.priority(me)).isEqualTo(Priority.HIGH);
+    assertThat(filter.priority(bearer)).isEqualTo(Priority.HIGH);
+    assertThat(filter.priority(emptyCookie)).isEqualTo(Priority.NORMAL);
+    assertThat(filter.priority(request("GET", "/api/v1/users/me")))
+      .isEqualTo(Priority.NORMAL);
+    assertThat(filter.priority(request("POST", "/api/v1/users/refresh")))
+      .isEqualTo(Priority.NORMAL);
+    assertThat(filter.priority(request("POST", "/api/v1/users/login")))
+      .isEqualTo(Priority.LOW);
+    assertThat(filter.priority(request("POST", "/api/v1/users")))
+      .isEqualTo(Priority.LOW);
+    assertThat(filter.priority(request("POST", "/api/v1/users/login/")))
+      .isEqualTo(Priority.LOW);
+    MockHttpServletRequest withSessionId = new MockHttpServletRequest(
+      "POST",
+      "/api/v1/users;jsessionid=1"
+    );
+    withSessionId.setServletPath("/api/v1/users");
+    assertThat(filter.priority(withSessionId)).isEqualTo(Priority.LOW);
+  }
+
+  @Test
+  void itShouldRejectOverTheLimitWithRetryAfter() throws Exception {
+    for (int i = 0; i < 2; i++) assertThat(limit.tryAcquire(Priority.LOW)).isTrue();
+
+    MockHttpServletResponse response = new MockHttpServletResponse();
+    MockFilterChain chain = new MockFilterChain();
+    filter.doFilter(request("POST", "/api/v1/users/login"), response, chain);
+
+    assertThat(response.getStatus()).isEqualTo(503);
+    assertThat(response.getHeader("Retry-After")).isEqualTo("1");
+    assertThat(chain.getRequest()).isNull();
+
+    MockHttpServletRequest me = request("GET", "/api/v1/users/me");
+    me.setCookies(new Cookie("accessToken", "token"));
+    MockHttpServletResponse admitted = new MockHttpServletResponse();
+    filter.doFilter(me, admitted, new MockFilterChain());
+    assertThat(admitted.getStatus()).isEqualTo(200);
+    assertThat(limit.getInFlight()).isEqualTo(2);
+  }
+
+  @Test
+  void itShouldNeverLimitHealthProbes() throws Exception {
+    for (int i = 0; i < 4; i++) limit.tryAcquire(Priority.HIGH);
+
+    MockHttpServletResponse response = new MockHttpServletResponse();
+    filter.doFilter(
+      request("GET", "/actuator/health/readiness"),
+      response,
+      new MockFilterChain()
+    );
+    assertThat(response.getStatus()).isEqualTo(200);
+  }
+
+  @Test
+  void itShouldFreeTheSlotWhenTheChainFails() {
+    MockFilterChain failing = new MockFilterChain() {
+      @Override
+      public void doFilter(
+        jakarta.servlet.ServletRequest request,
+        jakarta.servlet.ServletResponse response
+      ) throws ServletException {
+        throw new ServletException("boom");
+      }
+    };
+    assertThatThrownBy(() ->
+        filter.doFilter(
+          request("GET", "/api/v1/users/me"),
+          new MockHttpServletResponse(),
+          failing
+        )
+      )
+      .isInstanceOf(ServletException.class);
+    assertThat(limit.getInFlight()).isZero();
+  }
+
+  private static MockHttpServletRequest request(String method, String path) {
+    MockHttpServletRequest request = new MockHttpServletRequest(method, path);
+    request.setServletPath(path);
+    return request;
+  }
+}
@@ -0,0 +1,75 @@
+package com.project.template.logging;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.core.spi.FilterReply;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class HotPathSamplingFilterTests {
+
+  private final LoggerContext loggerContext = new LoggerContext();
+  private final HotPathSamplingFilter filter = new HotPathSamplingFilter();
+
+  @BeforeEach
+  void setUp() {
+    filter.setLoggers("com.project.template.config, org.hibernate");
+    filter.setEventsPerSecond(5);
+    loggerContext.getLogger(Logger.ROOT_LOGGER_NAME).setLevel(Level.DEBUG);
+  }
+
+  @Test
+  void itShouldLimitRepeatedTemplatesOnHotPaths() {
+    Logger logger = loggerContext.getLogger("com.project.template.config.X");
+    long sampledOutBefore = HotPathSamplingFilter.sampledOutEvents();
+
+    long denied = IntStream
+      .range(0, 50)
+      .mapToObj(i -> decide(logger, Level.INFO, "Same template {}"))
+      .filter(FilterReply.DENY::equals)
+      .count();
+
+    // the second may roll over mid loop and let another batch through
+    assertThat(denied).isBetween(40L, 45L);
+    assertThat(HotPathSamplingFilter.sampledOutEvents() - sampledOutBefore)
+      .isEqualTo(denied);
+    assertThat(decide(logger, Level.INFO, "Another template {}"))
+      .isEqualTo(FilterReply.NEUTRAL);
+  }
+
+  @Test
+  void itShouldLeaveErrorsAndOtherLoggersAlone() {
+    Logger hotPath = loggerContext.getLogger("org.hibernate.SQL");
+    Logger other = loggerContext.getLogger("com.project.template.controller.X");
+
+    assertThat(
+      IntStream
+        .range(0, 50)
+        .mapToObj(i -> decide(hotPath, Level.ERROR, "Failure {}"))
+    )
+      .containsOnly(FilterReply.NEUTRAL);
+    assertThat(
+      IntStream.range(0, 50).mapToObj(i -> decide(other, Level.INFO, "Call {}"))
+    )
+      .containsOnly(FilterReply.NEUTRAL);
+  }
+
+  @Test
+  void itShouldNotCountEventsBelowTheLoggerLevel() {
+    Logger logger = loggerContext.getLogger("com.project.template.config.Y");
+    logger.setLevel(Level.INFO);
+
+    assertThat(
+      IntStream.range(0, 50).mapToObj(i -> decide(logger, Level.DEBUG, "Debug {}"))
+    )
+      .containsOnly(FilterReply.NEUTRAL);
+  }
+
+  private FilterReply decide(Logger logger, Level level, String format) {
+    return filter.decide(null, logger, level, format, null, null);
+  }
+}
@@ -0,0 +1,134 @@
+package com.project.template.profiling;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.jayway.jsonpath.JsonPath;
+import com.project.template.utils.SecurityCipher;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+@SpringBootTest(
+  properties = {
+    "management.endpoints.web.exposure.include=health,jfr",
+    "profiling.adminEmails=admin@gmail.com",
+    "profiling.settings=default",
+  }
+)
+@AutoConfigureMockMvc
+class JfrEndpointTests {
+
+  @TempDir
+  static Path profilingDirectory;
+
+  @DynamicPropertySource
+  static void profilingDirectory(DynamicPropertyRegistry registry) {
+    registry.add("profiling.directory", () -> profilingDirectory.toString());
+  }
+
+  @Autowired
+  private MockMvc mockMvc;
+
+  @Autowired
+  private JfrEndpoint jfrEndpoint;
+
+  @AfterEach
+  void stopRecording() throws Exception {
+    jfrEndpoint.stop();
+  }
+
+  @Test
+  @WithMockUser(username = "user@gmail.com")
+  void itShouldOnlyServeAdmins() throws Exception {
+    mockMvc.perform(get("/actuator/jfr")).andExpect(status().isForbidden());
+    mockMvc
+      .perform(post("/actuator/jfr").contentType(MediaType.APPLICATION_JSON))
+      .andExpect(status().isForbidden());
+  }
+
+  @Test
+  void itShouldRejectAnonymousCallers() throws Exception {
+    mockMvc.perform(get("/actuator/jfr")).andExpect(status().isUnauthorized());
+  }
+
+  @Test
+  @WithMockUser(username = "admin@gmail.com")
+  void itShouldRecordTheTemplateEvents() throws Exception {
+    mockMvc
+      .perform(post("/actuator/jfr").contentType(MediaType.APPLICATION_JSON))
+      .andExpect(status().isOk());
+    mockMvc
+      .perform(post("/actuator/jfr").contentType(MediaType.APPLICATION_JSON))
+      .andExpect(status().isConflict());
+
+    SecurityCipher.decrypt(SecurityCipher.encrypt("token"));
+
+    String stopped = mockMvc
+      .perform(delete("/actuator/jfr"))
+      .andExpect(status().isOk())
+      .andReturn()
+      .getResponse()
+      .getContentAsString();
+    String file = JsonPath.read(stopped, "$.file");
+    byte[] recording = mockMvc
+      .perform(get("/actuator/jfr/" + file))
+      .andExpect(status().isOk())
+      .andReturn()
+      .getResponse()
+      .getContentAsByteArray();
+
+    assertThat(profilingDirectory.resolve(file)).exists();
+    Path downloaded = Files.write(profilingDirectory.resolve("downloaded.jfr"), recording);
+    List<String> operations = RecordingFile
+      .readAllEvents(downloaded)
+      .stream()
+      .filter(event -> event.getEventType().getName().equals("com.project.template.CookieCipher"))
+      .map((RecordedEvent event) -> event.getString("operation"))
+      .toList();
+    assertThat(operations).contains("encrypt", "decrypt");
+    mockMvc.perform(get("/actuator/jfr/other.jfr")).andExpect(status().isNotFound());
+  }
+
+  @Test
+  @WithMockUser(username = "admin@gmail.com")
+  void itShouldOnlyAcceptBuiltInSettings() throws Exception {
+    mockMvc
+      .perform(
+        post("/actuator/jfr")
+          .contentType(MediaType.APPLICATION_JSON)
+          .content("{\"settings\":\"/etc/passwd\"}")
+      )
+      .andExpect(status().isBadRequest());
+  }
+
+  @Test
+  @WithMockUser(username = "admin@gmail.com")
+  void itShouldRejectDurationsBelowOneSecond() throws Exception {
+    for (String maxDurationSec : List.of("0", "-5")) {
+      mockMvc
+        .perform(
+          post("/actuator/jfr")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content("{\"maxDurationSec\":" + maxDurationSec + "}")
+        )
+        .andExpect(status().isBadRequest());
+    }
+  }
+}
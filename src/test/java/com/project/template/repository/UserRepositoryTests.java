@@ -1,10 +1,21 @@
 package com.project.template.repository;
 
+import com.project.template.dto.UserSearchResult;
 import com.project.template.model.User;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 
 @DataJpaTest
 class UserRepositoryTests {
@@ -30,4 +41,120 @@ class UserRepositoryTests {
     //then
     Assertions.assertThat(userByEmail).isNotEmpty();
   }
+
+  @Test
+  void itShouldInsertAnUserOnlyOnce() {
+    User inserted = userRepository
+      .insertIfAbsent(user("insert@gmail.com"))
+      .orElseThrow();
+
+    Assertions.assertThat(inserted.getId()).isNotNull();
+    Assertions
+      .assertThat(userRepository.findUserByEmail("insert@gmail.com"))
+      .map(User::getId)
+      .contains(inserted.getId());
+    Assertions
+      .assertThat(userRepository.insertIfAbsent(user("insert@gmail.com")))
+      .isEmpty();
+  }
+
+  @Test
+  // each signup commits on its own connection, like concurrent requests
+  @Transactional(propagation = Propagation.NOT_SUPPORTED)
+  void itShouldLetOnlyOneConcurrentSignupWin() throws Exception {
+    int signups = 8;
+    CountDownLatch start = new CountDownLatch(1);
+    ExecutorService executor = Executors.newFixedThreadPool(signups);
+    try {
+      List<Future<Optional<User>>> results = new ArrayList<>();
+      for (int i = 0; i < signups; i++) {
+        results.add(
+          executor.submit(() -> {
+            start.await(5, TimeUnit.SECONDS);
+            return userRepository.insertIfAbsent(user("race@gmail.com"));
+          })
+        );
+      }
+      start.countDown();
+
+      int created = 0;
+      for (Future<Optional<User>> result : results) {
+        if (result.get(10, TimeUnit.SECONDS).isPresent()) created++;
+      }
+      Assertions.assertThat(created).isEqualTo(1);
+      Assertions
+        .assertThat(userRepository.findAllByEmailIn(List.of("race@gmail.com")))
+        .hasSize(1);
+    } finally {
+      executor.shutdownNow();
+      userRepository.deleteAll(
+        userRepository.findAllByEmailIn(List.of("race@gmail.com"))
+      );
+    }
+  }
+
+  @Test
+  void itShouldSearchNameAndEmailByKeyset() {
+    Long ana = userRepository.saveAndFlush(user("ana@gmail.com", "Ana Lima")).getId();
+    Long bruno = userRepository.saveAndFlush(user("bruno@ANAlytics.io", "Bruno")).getId();
+    Long carla = userRepository.saveAndFlush(user("carla@gmail.com", "Carla 100%")).getId();
+    Long zed = userRepository.saveAndFlush(user("anabel@gmail.com", "Zed")).getId();
+    Long unnamed = userRepository.saveAndFlush(user("anan@gmail.com", null)).getId();
+
+    // ordered by the matched value, ana only once though both columns match
+    Assertions
+      .assertThat(userRepository.search("ana", true, "", Long.MIN_VALUE, 10))
+      .extracting(UserSearchResult::getId, UserSearchResult::getSearchKey)
+      .containsExactly(
+        Assertions.tuple(ana, "ana lima"),
+        Assertions.tuple(zed, "anabel@gmail.com"),
+        Assertions.tuple(unnamed, "anan@gmail.com")
+      );
+    Assertions
+      .assertThat(userRepository.search("ana", true, "ana lima", ana, 1))
+      .extracting(UserSearchResult::getId)
+      .containsExactly(zed);
+    Assertions
+      .assertThat(userRepository.search("%ana%", false, "", Long.MIN_VALUE, 10))
+      .isEmpty();
+    Assertions
+      .assertThat(userRepository.search("lytics", false, "", Long.MIN_VALUE, 10))
+      .extracting(UserSearchResult::getId)
+      .containsExactly(bruno);
+    Assertions
+      .assertThat(userRepository.search("ana", false, "anan@gmail.com", unnamed, 10))
+      .extracting(UserSearchResult::getEmail)
+      .containsExactly("bruno@ANAlytics.io");
+    Assertions
+      .assertThat(userRepository.search("100%", false, "", Long.MIN_VALUE, 10))
+      .extracting(UserSearchResult::getId)
+      .containsExactly(carla);
+  }
+
+  @Test
+  void itShouldEndThePrefixRangeAfterTheLastMatchingKey() {
+    Assertions.assertThat(UserRepositoryCustomImpl.prefixEnd("ana")).isEqualTo("anb");
+    Assertions
+      .assertThat(UserRepositoryCustomImpl.prefixEnd("a\uD7FF"))
+      .isEqualTo("a\uE000");
+    Assertions
+      .assertThat(UserRepositoryCustomImpl.prefixEnd("a" + Character.toString(Character.MAX_CODE_POINT)))
+      .isEqualTo("b");
+    Assertions
+      .assertThat(UserRepositoryCustomImpl.prefixEnd(Character.toString(Character.MAX_CODE_POINT)))
+      .isNull();
+  }
+
+  private static User user(String email) {
+    return user(email, "Test");
+  }
+
+  private static User user(String email, String name) {
+    return User
+      .builder()
+      .name(name)
+      .password("testepassword")
+      .email(email)
+      .build();
+  }
 }
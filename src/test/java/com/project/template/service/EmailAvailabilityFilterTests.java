@@ -0,0 +1,91 @@
+package com.project.template.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.project.template.model.User;
+import com.project.template.repository.UserRepository;
+import com.project.template.service.impl.EmailAvailabilityFilter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+@DataJpaTest(
+  properties = {
+    "emailFilter.expectedInsertions=10000", "emailFilter.falsePositiveRate=0.01",
+  }
+)
+@Import(EmailAvailabilityFilter.class)
+class EmailAvailabilityFilterTests {
+
+  @Autowired
+  private EmailAvailabilityFilter emailAvailabilityFilter;
+
+  @Autowired
+  private UserRepository userRepository;
+
+  @Test
+  void itShouldLoadExistingEmailsFromTheUsersTable() {
+    userRepository.saveAndFlush(
+      User
+        .builder()
+        .name("Test")
+        .password("testepassword")
+        .email("Existing@Gmail.com")
+        .build()
+    );
+
+    emailAvailabilityFilter.load();
+
+    assertThat(emailAvailabilityFilter.isLoaded()).isTrue();
+    assertThat(emailAvailabilityFilter.mightContain("Existing@Gmail.com")).isTrue();
+    assertThat(emailAvailabilityFilter.mightContain(" existing@gmail.com")).isTrue();
+  }
+
+  @Test
+  void itShouldPickUpRowsInsertedElsewhereOnRefresh() {
+    emailAvailabilityFilter.load();
+    // signup handled by another replica, this filter never saw add()
+    userRepository.saveAndFlush(
+      User
+        .builder()
+        .name("Test")
+        .password("testepassword")
+        .email("elsewhere@gmail.com")
+        .build()
+    );
+    assertThat(emailAvailabilityFilter.mightContain("elsewhere@gmail.com")).isFalse();
+
+    emailAvailabilityFilter.refresh();
+
+    assertThat(emailAvailabilityFilter.mightContain("elsewhere@gmail.com")).isTrue();
+  }
+
+  @Test
+  void itShouldStayNearTheTargetFalsePositiveRate() {
+    emailAvailabilityFilter.load();
+    for (int i = 0; i < 10000; i++) {
+      emailAvailabilityFilter.add("user" + i + "@gmail.com");
+    }
+    for (int i = 0; i < 10000; i++) {
+      assertThat(emailAvailabilityFilter.mightContain("user" + i + "@gmail.com"))
+        .isTrue();
+    }
+
+    int falsePositives = 0;
+    for (int i = 0; i < 100000; i++) {
+      if (emailAvailabilityFilter.mightContain("other" + i + "@gmail.com")) {
+        falsePositives++;
+      }
+    }
+    assertThat(falsePositives / 100000.0).isLessThan(0.02);
+    assertThat(emailAvailabilityFilter.expectedFalsePositiveRate())
+      .isBetween(0.005, 0.015);
+
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    emailAvailabilityFilter.bindTo(registry);
+    assertThat(registry.get("email.filter.fpp").gauge().value())
+      .isEqualTo(emailAvailabilityFilter.expectedFalsePositiveRate());
+  }
+}
@@ -0,0 +1,73 @@
+package com.project.template.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.project.template.model.User;
+import com.project.template.repository.UserRepository;
+import com.project.template.service.impl.LoginActivityRecorder;
+import java.sql.Timestamp;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+@DataJpaTest(properties = "loginActivity.batchSize=2")
+@Import(LoginActivityRecorder.class)
+class LoginActivityRecorderTests {
+
+  @Autowired
+  private LoginActivityRecorder loginActivityRecorder;
+
+  @Autowired
+  private UserRepository userRepository;
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  @Test
+  void itShouldCoalesceLoginsIntoBatchedUpdates() {
+    Long firstUser = saveUser("first@gmail.com");
+    Long secondUser = saveUser("second@gmail.com");
+    Long thirdUser = saveUser("third@gmail.com");
+
+    loginActivityRecorder.record(firstUser);
+    loginActivityRecorder.record(firstUser);
+    loginActivityRecorder.record(firstUser);
+    loginActivityRecorder.record(secondUser);
+    loginActivityRecorder.record(thirdUser);
+    assertThat(loginCount(firstUser)).isZero();
+
+    loginActivityRecorder.drain();
+
+    assertThat(loginCount(firstUser)).isEqualTo(3L);
+    assertThat(loginCount(secondUser)).isEqualTo(1L);
+    assertThat(loginCount(thirdUser)).isEqualTo(1L);
+    assertThat(activity(firstUser).get("last_login_at"))
+      .isInstanceOf(Timestamp.class);
+
+    loginActivityRecorder.record(secondUser);
+    loginActivityRecorder.flush();
+    assertThat(loginCount(secondUser)).isEqualTo(2L);
+  }
+
+  private Long saveUser(String email) {
+    return userRepository
+      .saveAndFlush(
+        User.builder().name("Test").password("testepassword").email(email).build()
+      )
+      .getId();
+  }
+
+  private Long loginCount(Long userId) {
+    return ((Number) activity(userId).get("login_count")).longValue();
+  }
+
+  private Map<String, Object> activity(Long userId) {
+    return jdbcTemplate.queryForMap(
+      "SELECT login_count, last_login_at FROM users WHERE id = ?",
+      userId
+    );
+  }
+}
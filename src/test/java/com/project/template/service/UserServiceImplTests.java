@@ -9,23 +9,45 @@ import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.project.template.config.DataSourceRoutingContext;
+import com.project.template.config.JwtKeyRing;
+import com.project.template.config.JwtSigningProperties;
+import com.project.template.config.ReplicaRoutingProperties;
 import com.project.template.dto.CreateUserDTO;
 import com.project.template.dto.CustomUserDetails;
 import com.project.template.dto.LoginRequest;
 import com.project.template.dto.LoginResponse;
 import com.project.template.dto.Token;
+import com.project.template.dto.TokenClaims;
+import com.project.template.dto.UserSearchPage;
+import com.project.template.dto.UserSearchResult;
 import com.project.template.exception.BadRequestException;
 import com.project.template.exception.EntityExistsException;
 import com.project.template.exception.ResourceNotFoundException;
 import com.project.template.model.User;
 import com.project.template.repository.UserRepository;
+import com.project.template.service.impl.EmailAvailabilityFilter;
+import com.project.template.service.impl.LoginActivityRecorder;
+import com.project.template.service.impl.TokenProviderImpl;
 import com.project.template.service.impl.UserServiceImpl;
 import com.project.template.utils.CookieUtil;
+import com.project.template.utils.NegativeLookupCache;
 import com.project.template.utils.SecurityCipher;
+import com.project.template.utils.TokenVersionRegistry;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
@@ -42,10 +64,13 @@ import org.mockito.MockitoAnnotations;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseCookie;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.AuthorityUtils;
 import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
 
 @ExtendWith(MockitoExtension.class)
 public class UserServiceImplTests {
@@ -54,6 +79,9 @@ public class UserServiceImplTests {
 
   private static final Long MILLIS_PER_DAY = 86400000L;
 
+  private static final String TOKEN_SECRET =
+    "JKppIO23J423NASDKJHxccxa2133ASKDFOEW3434423N13sndmas2123LXCKLJKppIO23J423NASDKJHxccxa2133ASKDFOEW3434423N13sndmas2123LXCKL";
+
   @Captor
   private ArgumentCaptor<User> userArgumentCaptor;
 
@@ -75,12 +103,22 @@ public class UserServiceImplTests {
   @Mock
   private PasswordEncoder passwordEncoder;
 
+  @Mock
+  private TokenVersionRegistry tokenVersionRegistry;
+
+  @Mock
+  private LoginActivityRecorder loginActivityRecorder;
+
   @Mock
   private SecurityContext securityContext;
 
   @Mock
   private Authentication auth;
 
+  private NegativeLookupCache negativeLookupCache;
+
+  private EmailAvailabilityFilter emailAvailabilityFilter;
+
   private MockedStatic<SecurityCipher> securityCipherStaticMocked;
 
   private AutoCloseable autoCloseable;
@@ -103,14 +141,27 @@ public class UserServiceImplTests {
   void setUp() throws IOException {
     securityCipherStaticMocked = Mockito.mockStatic(SecurityCipher.class);
     autoCloseable = MockitoAnnotations.openMocks(this);
+    negativeLookupCache = new NegativeLookupCache(60000, 1000);
+    emailAvailabilityFilter =
+      new EmailAvailabilityFilter(Mockito.mock(JdbcTemplate.class), 1000, 0.01);
+    emailAvailabilityFilter.load();
 
-    underTest =
-      new UserServiceImpl(
-        userRepository,
-        tokenProvider,
-        cookieUtil,
-        passwordEncoder
-      );
+    underTest = userService(tokenVersionRegistry);
+  }
+
+  private UserServiceImpl userService(TokenVersionRegistry tokenVersionRegistry) {
+    return new UserServiceImpl(
+      userRepository,
+      tokenProvider,
+      cookieUtil,
+      passwordEncoder,
+      tokenVersionRegistry,
+      Runnable::run,
+      new DataSourceRoutingContext(new ReplicaRoutingProperties()),
+      negativeLookupCache,
+      loginActivityRecorder,
+      emailAvailabilityFilter
+    );
   }
 
   @AfterEach
@@ -137,7 +188,8 @@ public class UserServiceImplTests {
       .password(password)
       .build();
 
-    when(userRepository.save(any())).thenReturn(createdUser);
+    when(userRepository.insertIfAbsent(any(User.class)))
+      .thenReturn(Optional.of(createdUser));
 
     underTest.create(
       new CreateUserDTO(
@@ -147,7 +199,9 @@ public class UserServiceImplTests {
       )
     );
 
-    verify(userRepository, times(1)).save(userArgumentCaptor.capture());
+    verify(userRepository, times(1))
+      .insertIfAbsent(userArgumentCaptor.capture());
+    verify(userRepository, never()).findUserByEmail(anyString());
 
     // assert that the user created in this method is the same as to the one
     // captured by userArgumentCaptor
@@ -171,8 +225,8 @@ public class UserServiceImplTests {
       .build();
 
     BDDMockito
-      .given(userRepository.findUserByEmail(Mockito.anyString()))
-      .willReturn(Optional.of(createdUser));
+      .given(userRepository.insertIfAbsent(Mockito.any(User.class)))
+      .willReturn(Optional.empty());
 
     // when
     // then
@@ -218,8 +272,8 @@ public class UserServiceImplTests {
       MILLIS_PER_DAY,
       null
     );
-    when(tokenProvider.generateAccessToken(anyString())).thenReturn(tokenMock);
-    when(tokenProvider.generateRefreshToken(anyString())).thenReturn(tokenMock);
+    when(tokenProvider.generateAccessToken(any(User.class))).thenReturn(tokenMock);
+    when(tokenProvider.generateRefreshToken(any(User.class))).thenReturn(tokenMock);
     when(passwordEncoder.matches(anyString(), anyString())).thenReturn(true);
     when(cookieUtil.createAccessTokenCookie(anyString(), anyLong()))
       .thenReturn(
@@ -233,6 +287,7 @@ public class UserServiceImplTests {
 
     var response = underTest.login(loginRequest, null, null);
 
+    verify(loginActivityRecorder).record(userId);
     assertThat(response.getHeaders().get(HttpHeaders.SET_COOKIE)).isNotNull();
     var responseBody = response.getBody();
     assertThat(responseBody).isNotNull();
@@ -262,8 +317,128 @@ public class UserServiceImplTests {
     assertThatThrownBy(() -> underTest.login(loginRequest, null, null))
       .isInstanceOf(BadRequestException.class)
       .hasMessageContaining("Password doesn't match!");
-    verify(tokenProvider, never()).generateAccessToken(Mockito.any());
-    verify(tokenProvider, never()).generateRefreshToken(Mockito.any());
+    verify(tokenProvider, never()).generateAccessToken(Mockito.any(User.class));
+    verify(tokenProvider, never()).generateRefreshToken(Mockito.any(User.class));
+    verify(loginActivityRecorder, never()).record(anyLong());
+  }
+
+  @Test
+  @DisplayName("Concurrent lookups of the same user should run one query.")
+  void itShouldCoalesceConcurrentFindById() throws Exception {
+    int callers = 8;
+    CountDownLatch queried = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    when(userRepository.findById(userId))
+      .thenAnswer(invocation -> {
+        queried.countDown();
+        release.await(5, TimeUnit.SECONDS);
+        return Optional.of(currentUser);
+      });
+    List<Thread> callerThreads = new CopyOnWriteArrayList<>();
+    ExecutorService executor = Executors.newFixedThreadPool(
+      callers,
+      runnable -> {
+        Thread thread = new Thread(runnable);
+        callerThreads.add(thread);
+        return thread;
+      }
+    );
+    try {
+      List<Future<User>> results = new ArrayList<>();
+      for (int i = 0; i < callers; i++) {
+        results.add(executor.submit(() -> underTest.findById(userId)));
+      }
+      queried.await(5, TimeUnit.SECONDS);
+      // every caller parked: one in the query, the others on its result
+      while (
+        callerThreads.size() < callers ||
+        !callerThreads
+          .stream()
+          .allMatch(thread -> thread.getState() == Thread.State.TIMED_WAITING)
+      ) {
+        Thread.sleep(5);
+      }
+      release.countDown();
+
+      for (Future<User> result : results) {
+        assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo(currentUser);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+    verify(userRepository, times(1)).findById(userId);
+  }
+
+  @Test
+  @DisplayName("It should keep the cookies' tokens when they are still valid.")
+  void itShouldNotReissueValidTokensOnLogin() {
+    LoginRequest loginRequest = new LoginRequest(userMail, password);
+    when(userRepository.findUserByEmail(userMail))
+      .thenReturn(Optional.of(currentUser));
+    when(passwordEncoder.matches(anyString(), anyString())).thenReturn(true);
+    securityCipherStaticMocked
+      .when(() -> SecurityCipher.decrypt(anyString()))
+      .then(invocation -> invocation.getArgument(0));
+    when(tokenProvider.findTokenClaims("ACCESS"))
+      .thenReturn(
+        Optional.of(
+          new TokenClaims(userMail, 0, LocalDateTime.now().plusHours(1))
+        )
+      );
+    when(tokenProvider.findTokenClaims("REFRESH"))
+      .thenReturn(
+        Optional.of(
+          new TokenClaims(userMail, 0, LocalDateTime.now().plusDays(30))
+        )
+      );
+
+    var response = underTest.login(loginRequest, "ACCESS", "REFRESH");
+
+    assertThat(response.getHeaders().get(HttpHeaders.SET_COOKIE)).isNull();
+    verify(tokenProvider, never()).generateAccessToken(any(User.class));
+    verify(tokenProvider, never()).generateRefreshToken(any(User.class));
+  }
+
+  @Test
+  @DisplayName("It should reissue tokens of another user or version on login.")
+  void itShouldReissueTokensThatCannotBeKeptOnLogin() {
+    LoginRequest loginRequest = new LoginRequest(userMail, password);
+    when(userRepository.findUserByEmail(userMail))
+      .thenReturn(Optional.of(currentUser));
+    when(passwordEncoder.matches(anyString(), anyString())).thenReturn(true);
+    securityCipherStaticMocked
+      .when(() -> SecurityCipher.decrypt(anyString()))
+      .then(invocation -> invocation.getArgument(0));
+    when(tokenProvider.findTokenClaims("ACCESS"))
+      .thenReturn(
+        Optional.of(
+          new TokenClaims("other@gmail.com", 0, LocalDateTime.now().plusHours(1))
+        )
+      );
+    when(tokenProvider.findTokenClaims("REFRESH"))
+      .thenReturn(
+        Optional.of(
+          new TokenClaims(userMail, -1, LocalDateTime.now().plusDays(30))
+        )
+      );
+    var tokenMock = new Token(
+      Token.TokenType.ACCESS,
+      WANNABE_ACCESS_TOKEN,
+      MILLIS_PER_DAY,
+      null
+    );
+    when(tokenProvider.generateAccessToken(any(User.class))).thenReturn(tokenMock);
+    when(tokenProvider.generateRefreshToken(any(User.class))).thenReturn(tokenMock);
+    when(cookieUtil.createAccessTokenCookie(anyString(), anyLong()))
+      .thenReturn(ResponseCookie.from("accessToken", WANNABE_ACCESS_TOKEN).build());
+    when(cookieUtil.createRefreshTokenCookie(anyString(), anyLong()))
+      .thenReturn(ResponseCookie.from("refreshToken", WANNABE_ACCESS_TOKEN).build());
+
+    var response = underTest.login(loginRequest, "ACCESS", "REFRESH");
+
+    assertThat(response.getHeaders().get(HttpHeaders.SET_COOKIE)).hasSize(2);
+    verify(tokenProvider).generateAccessToken(currentUser);
+    verify(tokenProvider).generateRefreshToken(currentUser);
   }
 
   @Test
@@ -281,7 +456,9 @@ public class UserServiceImplTests {
     );
     when(tokenProvider.getUsernameFromToken(anyString()))
       .thenReturn(emailFromToken);
-    when(tokenProvider.generateAccessToken(anyString())).thenReturn(tokenMock);
+    when(userRepository.findUserByEmail(emailFromToken))
+      .thenReturn(Optional.of(User.builder().id(userId).email(emailFromToken).build()));
+    when(tokenProvider.generateAccessToken(any(User.class))).thenReturn(tokenMock);
     when(cookieUtil.createAccessTokenCookie(anyString(), anyLong()))
       .thenReturn(ResponseCookie.from("accessToken", generatedToken).build());
 
@@ -325,13 +502,104 @@ public class UserServiceImplTests {
     when(SecurityCipher.decrypt(anyString(), anyBoolean())).thenReturn("");
     when(tokenProvider.validateToken(anyString())).thenReturn(true);
 
-    when(tokenProvider.getUsernameFromToken(anyString())).thenReturn(userMail);
+    when(tokenProvider.findTokenClaims(anyString()))
+      .thenReturn(Optional.of(new TokenClaims(userMail, 0, LocalDateTime.now().plusHours(1))));
     when(userRepository.findUserByEmail(anyString()))
       .thenReturn(Optional.of(user));
 
     var userByToken = underTest.getTokenUser(WANNABE_ACCESS_TOKEN);
 
     assertThat(userByToken.getId()).isEqualTo(userId);
+
+    user.setTokenVersion(1);
+    assertThatThrownBy(() -> underTest.getTokenUser(WANNABE_ACCESS_TOKEN))
+      .isInstanceOf(BadRequestException.class)
+      .hasMessageContaining("Token invalid!");
+  }
+
+  @Test
+  @DisplayName("Repeated logins with an unknown email should query once.")
+  void itShouldRememberUnknownEmails() {
+    LoginRequest loginRequest = new LoginRequest(userMail, password);
+    when(userRepository.findUserByEmail(userMail)).thenReturn(Optional.empty());
+
+    for (int i = 0; i < 3; i++) {
+      assertThatThrownBy(() -> underTest.login(loginRequest, null, null))
+        .isInstanceOf(ResourceNotFoundException.class);
+    }
+    verify(userRepository, times(1)).findUserByEmail(userMail);
+
+    when(userRepository.insertIfAbsent(any(User.class)))
+      .thenReturn(Optional.of(currentUser));
+    underTest.create(new CreateUserDTO(userMail, testName, password));
+    assertThat(negativeLookupCache.isUnknownEmail(userMail)).isFalse();
+  }
+
+  @Test
+  @DisplayName("A rejected token should not be decrypted or verified again.")
+  void itShouldRememberRejectedTokens() {
+    when(SecurityCipher.decrypt(anyString(), anyBoolean())).thenReturn("");
+    when(tokenProvider.validateToken(anyString())).thenReturn(false);
+
+    for (int i = 0; i < 3; i++) {
+      assertThatThrownBy(() -> underTest.getTokenUser(WANNABE_ACCESS_TOKEN))
+        .isInstanceOf(BadRequestException.class)
+        .hasMessageContaining("Token invalid!");
+    }
+    verify(tokenProvider, times(1)).validateToken(anyString());
+    securityCipherStaticMocked.verify(
+      () -> SecurityCipher.decrypt(anyString(), anyBoolean()),
+      times(1)
+    );
+  }
+
+  @Test
+  @DisplayName("A rejected refresh token should not be decrypted or verified again.")
+  void itShouldRememberRejectedRefreshTokens() {
+    when(SecurityCipher.decrypt(anyString())).thenReturn("FORGED_TOKEN");
+    when(tokenProvider.validateToken("FORGED_TOKEN")).thenReturn(false);
+
+    for (int i = 0; i < 2; i++) {
+      assertThatThrownBy(() -> underTest.refresh(WANNABE_ACCESS_TOKEN, "FORGED"))
+        .isInstanceOf(BadRequestException.class)
+        .hasMessageContaining("Refresh Token is invalid!");
+    }
+    verify(tokenProvider, times(1)).validateToken(anyString());
+    securityCipherStaticMocked.verify(
+      () -> SecurityCipher.decrypt("FORGED"),
+      times(1)
+    );
+  }
+
+  @Test
+  @DisplayName("It should introspect a batch of tokens with a single user query.")
+  void itShouldIntrospectTokens() {
+    String unknownUserMail = "unknown@gmail.com";
+    User user = User.builder().id(userId).name(testName).email(userMail).build();
+    when(SecurityCipher.decrypt(anyString())).thenAnswer(invocation -> invocation.getArgument(0));
+    LocalDateTime expiry = LocalDateTime.now().plusHours(1);
+    when(tokenProvider.findTokenClaims("VALID_TOKEN"))
+      .thenReturn(Optional.of(new TokenClaims(userMail, null, expiry)));
+    when(tokenProvider.findTokenClaims("UNKNOWN_USER_TOKEN"))
+      .thenReturn(Optional.of(new TokenClaims(unknownUserMail, 0, expiry)));
+    when(tokenProvider.findTokenClaims("FORGED_TOKEN")).thenReturn(Optional.empty());
+    when(tokenProvider.findTokenClaims("INVALIDATED_TOKEN"))
+      .thenReturn(Optional.of(new TokenClaims(userMail, 1, expiry)));
+    when(userRepository.findAllByEmailIn(List.of(userMail, unknownUserMail)))
+      .thenReturn(List.of(user));
+
+    var results = underTest.introspect(
+      List.of("VALID_TOKEN", "FORGED_TOKEN", "UNKNOWN_USER_TOKEN", "VALID_TOKEN", "INVALIDATED_TOKEN")
+    );
+
+    assertThat(results).hasSize(5);
+    assertThat(results.get(4).getError()).isEqualTo("Token invalid!");
+    assertThat(results.get(0).isActive()).isTrue();
+    assertThat(results.get(0).getUser().getId()).isEqualTo(userId);
+    assertThat(results.get(1).getError()).isEqualTo("Token invalid!");
+    assertThat(results.get(2).getError()).isEqualTo("User not found!");
+    assertThat(results.get(3).isActive()).isTrue();
+    verify(userRepository, times(1)).findAllByEmailIn(any());
   }
 
   @Test
@@ -373,9 +641,150 @@ public class UserServiceImplTests {
     assertThat(loggedUser.getId()).isEqualTo(currentUser.getId());
   }
 
+  @Test
+  @DisplayName("A claims-carrying token should yield the principal without a query.")
+  void itShouldReadThePrincipalFromTokenClaims() throws Exception {
+    TokenProviderImpl realTokenProvider = new TokenProviderImpl(
+      new JwtKeyRing(TOKEN_SECRET, new JwtSigningProperties())
+    );
+    ReflectionTestUtils.setField(realTokenProvider, "tokenExpirationMsec", MILLIS_PER_DAY);
+    currentUser.setTokenVersion(3);
+
+    CustomUserDetails principal = realTokenProvider
+      .getUserDetailsFromToken(
+        realTokenProvider.generateAccessToken(currentUser).getTokenValue()
+      )
+      .orElseThrow();
+
+    assertThat(principal.getUser().getId()).isEqualTo(userId);
+    assertThat(principal.getUser().getEmail()).isEqualTo(userMail);
+    assertThat(principal.getUser().getName()).isEqualTo(testName);
+    assertThat(principal.getUser().getTokenVersion()).isEqualTo(3);
+    assertThat(principal.getUser().getPassword()).isNull();
+    assertThat(AuthorityUtils.authorityListToSet(principal.getAuthorities()))
+      .isEqualTo(
+        AuthorityUtils.authorityListToSet(new CustomUserDetails(currentUser).getAuthorities())
+      );
+    // subject-only tokens and garbage carry no principal
+    assertThat(
+      realTokenProvider.getUserDetailsFromToken(
+        realTokenProvider.generateAccessToken(userMail).getTokenValue()
+      )
+    )
+      .isEmpty();
+    assertThat(realTokenProvider.getUserDetailsFromToken("not-a-token")).isEmpty();
+    verifyNoInteractions(userRepository);
+  }
+
+  @Test
+  @DisplayName("Invalidating tokens should bump the version and reject older tokens.")
+  void itShouldInvalidateTokensByBumpingTheVersion() {
+    TokenVersionRegistry registry = new TokenVersionRegistry();
+    UserServiceImpl service = userService(registry);
+    mockAuthentication();
+    User stored = User.builder().id(userId).email(userMail).name(testName).build();
+    when(userRepository.findById(userId)).thenReturn(Optional.of(stored));
+    when(cookieUtil.deleteAccessTokenCookie())
+      .thenReturn(ResponseCookie.from("accessToken", "").maxAge(0).build());
+    when(cookieUtil.deleteRefreshTokenCookie())
+      .thenReturn(ResponseCookie.from("refreshToken", "").maxAge(0).build());
+    CustomUserDetails issuedBefore = new CustomUserDetails(
+      User.builder().id(userId).email(userMail).tokenVersion(0).build()
+    );
+    assertThat(registry.isCurrent(issuedBefore)).isTrue();
+
+    var response = service.invalidateTokens();
+
+    verify(userRepository).save(userArgumentCaptor.capture());
+    assertThat(userArgumentCaptor.getValue().getTokenVersion()).isEqualTo(1);
+    assertThat(response.getHeaders().get(HttpHeaders.SET_COOKIE))
+      .anyMatch(cookie -> cookie.startsWith("accessToken=;"))
+      .anyMatch(cookie -> cookie.startsWith("refreshToken=;"));
+    assertThat(registry.isCurrent(issuedBefore)).isFalse();
+    assertThat(
+      registry.isCurrent(
+        new CustomUserDetails(
+          User.builder().id(userId).email(userMail).tokenVersion(1).build()
+        )
+      )
+    )
+      .isTrue();
+    assertThat(
+      registry.isCurrent(
+        new CustomUserDetails(User.builder().id(2L).tokenVersion(0).build())
+      )
+    )
+      .isTrue();
+  }
+
+  @Test
+  @DisplayName("A refresh should refuse refresh tokens of an older version.")
+  void itShouldNotRefreshWithAnInvalidatedRefreshToken() {
+    when(SecurityCipher.decrypt(anyString())).thenReturn("REFRESH_TOKEN");
+    when(tokenProvider.validateToken("REFRESH_TOKEN")).thenReturn(true);
+    when(tokenProvider.getUsernameFromToken("REFRESH_TOKEN")).thenReturn(userMail);
+    currentUser.setTokenVersion(1);
+    when(userRepository.findUserByEmail(userMail)).thenReturn(Optional.of(currentUser));
+    when(tokenProvider.getUserDetailsFromToken("REFRESH_TOKEN"))
+      .thenReturn(
+        Optional.of(
+          new CustomUserDetails(
+            User.builder().id(userId).email(userMail).tokenVersion(0).build()
+          )
+        )
+      );
+
+    assertThatThrownBy(() -> underTest.refresh(WANNABE_ACCESS_TOKEN, "REFRESH"))
+      .isInstanceOf(BadRequestException.class)
+      .hasMessageContaining("Refresh Token is invalid!");
+    verify(tokenProvider, never()).generateAccessToken(any(User.class));
+  }
+
   private void mockAuthentication() {
     when(securityContext.getAuthentication()).thenReturn(auth);
     when(auth.getPrincipal()).thenReturn(new CustomUserDetails(currentUser));
     SecurityContextHolder.setContext(securityContext);
   }
+
+  @Test
+  @DisplayName("An email the filter never saw is available without a query.")
+  void itShouldAnswerUnseenEmailsFromTheFilter() {
+    assertThat(underTest.isEmailAvailable(userMail)).isTrue();
+    verify(userRepository, never()).findUserByEmail(anyString());
+
+    when(userRepository.insertIfAbsent(any(User.class)))
+      .thenReturn(Optional.of(currentUser));
+    underTest.create(new CreateUserDTO(userMail, testName, password));
+    when(userRepository.findUserByEmail(userMail))
+      .thenReturn(Optional.of(currentUser));
+
+    assertThat(underTest.isEmailAvailable(userMail)).isFalse();
+    verify(userRepository, times(1)).findUserByEmail(userMail);
+  }
+
+  @Test
+  @DisplayName("Search should hand out a keyset cursor and read it back.")
+  void itShouldSearchWithAKeysetCursor() {
+    UserSearchResult first = new UserSearchResult(3L, "a@gmail.com", "50%_o a", "50%_o a");
+    UserSearchResult second = new UserSearchResult(7L, "b@gmail.com", "50%_o: b", "50%_o: b");
+    UserSearchResult third = new UserSearchResult(8L, "c@gmail.com", "50%_o c", "50%_o c");
+    when(userRepository.search("50%_o", false, "", Long.MIN_VALUE, 3))
+      .thenReturn(List.of(first, second, third));
+    when(userRepository.search("50%_o", false, "50%_o: b", 7L, 3))
+      .thenReturn(List.of(third));
+
+    UserSearchPage page = underTest.search(" 50%_O ", "contains", null, 2);
+
+    assertThat(page.getUsers()).containsExactly(first, second);
+    assertThat(page.getNextCursor()).isNotNull();
+    UserSearchPage next = underTest.search(" 50%_O ", "contains", page.getNextCursor(), 2);
+    assertThat(next.getUsers()).containsExactly(third);
+    assertThat(next.getNextCursor()).isNull();
+    assertThatThrownBy(() -> underTest.search("ana", "prefix", "not a cursor", 20))
+      .isInstanceOf(BadRequestException.class);
+    assertThatThrownBy(() -> underTest.search("ab", "contains", null, 20))
+      .isInstanceOf(BadRequestException.class);
+    assertThatThrownBy(() -> underTest.search("ana", "prefix", null, 101))
+      .isInstanceOf(BadRequestException.class);
+  }
 }
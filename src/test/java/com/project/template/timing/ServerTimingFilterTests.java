@@ -0,0 +1,136 @@
+package com.project.template.timing;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.Arrays;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+
+@SpringBootTest(
+  properties = {
+    "serverTiming.mode=HEADER", "serverTiming.headerToken=timing-secret",
+  }
+)
+@AutoConfigureMockMvc
+class ServerTimingFilterTests {
+
+  private static final String EMAIL_AVAILABLE =
+    "/api/v1/users/email-available?email=nobody@gmail.com";
+
+  @Autowired
+  private MockMvc mockMvc;
+
+  @Autowired
+  private MeterRegistry meterRegistry;
+
+  @Test
+  void itShouldReportStagesToPrivilegedCallers() throws Exception {
+    String serverTiming = mockMvc
+      .perform(get(EMAIL_AVAILABLE).header("X-Server-Timing", "timing-secret"))
+      .andExpect(status().isOk())
+      .andExpect(content().json("{\"available\":true}"))
+      .andReturn()
+      .getResponse()
+      .getHeader(ServerTimingFilter.SERVER_TIMING_HEADER);
+
+    assertThat(serverTiming)
+      .matches(
+        "handler;dur=\\d+\\.\\d{3}, serialization;dur=\\d+\\.\\d{3}, total;dur=\\d+\\.\\d{3}"
+      );
+    assertThat(
+      meterRegistry
+        .get("server.timing")
+        .tag("stage", "serialization")
+        .timer()
+        .count()
+    )
+      .isPositive();
+  }
+
+  @Test
+  void itShouldRecordTheAuthStagesOfAnAuthenticatedCall() throws Exception {
+    String serverTiming = mockMvc
+      .perform(
+        get("/api/v1/users/me")
+          .header("X-Server-Timing", "timing-secret")
+          .cookie(new jakarta.servlet.http.Cookie("accessToken", "not-a-token"))
+      )
+      .andReturn()
+      .getResponse()
+      .getHeader(ServerTimingFilter.SERVER_TIMING_HEADER);
+
+    assertThat(serverTiming).startsWith("cookie;dur=").contains("total;dur=");
+  }
+
+  @Test
+  void itShouldSetTheHeaderBeforeStreamingALargeBody() throws Exception {
+    ServerTimingProperties properties = new ServerTimingProperties();
+    properties.setMode(ServerTimingProperties.Mode.ALWAYS);
+    ServerTimingFilter filter = new ServerTimingFilter(
+      properties,
+      new SimpleMeterRegistry()
+    );
+    MockHttpServletResponse response = new MockHttpServletResponse();
+    byte[] body = new byte[response.getBufferSize() * 4];
+    Arrays.fill(body, (byte) 'a');
+
+    filter.doFilter(
+      new MockHttpServletRequest("GET", "/api/v1/users"),
+      response,
+      (request, timedResponse) -> {
+        timedResponse.getOutputStream().write(body, 0, body.length / 2);
+        // streamed through once past the buffer, with the header already set
+        assertThat(response.getContentAsByteArray()).hasSize(body.length / 2);
+        assertThat(response.getHeader(ServerTimingFilter.SERVER_TIMING_HEADER))
+          .contains("total;dur=");
+        timedResponse
+          .getOutputStream()
+          .write(body, body.length / 2, body.length - body.length / 2);
+      }
+    );
+
+    assertThat(response.getContentAsByteArray()).isEqualTo(body);
+  }
+
+  @Test
+  void itShouldNotTimeRecordingDownloads() throws Exception {
+    ServerTimingProperties properties = new ServerTimingProperties();
+    properties.setMode(ServerTimingProperties.Mode.ALWAYS);
+    ServerTimingFilter filter = new ServerTimingFilter(
+      properties,
+      new SimpleMeterRegistry()
+    );
+    MockHttpServletResponse response = new MockHttpServletResponse();
+
+    filter.doFilter(
+      new MockHttpServletRequest("GET", "/actuator/jfr/download"),
+      response,
+      (request, timedResponse) ->
+        assertThat(timedResponse).isSameAs(response)
+    );
+
+    assertThat(response.getHeader(ServerTimingFilter.SERVER_TIMING_HEADER)).isNull();
+  }
+
+  @Test
+  void itShouldStayOffWithoutTheToken() throws Exception {
+    mockMvc
+      .perform(get(EMAIL_AVAILABLE).header("X-Server-Timing", "guess"))
+      .andExpect(status().isOk())
+      .andExpect(header().doesNotExist(ServerTimingFilter.SERVER_TIMING_HEADER));
+    mockMvc
+      .perform(get(EMAIL_AVAILABLE))
+      .andExpect(header().doesNotExist(ServerTimingFilter.SERVER_TIMING_HEADER));
+  }
+}
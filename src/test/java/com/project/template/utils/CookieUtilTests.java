@@ -0,0 +1,30 @@
+package com.project.template.utils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+public class CookieUtilTests {
+
+  @Test
+  void itShouldFindTheCookieValueInTheHeader() {
+    assertThat(value("accessToken=abc", "accessToken")).isEqualTo("abc");
+    assertThat(value("a=1; accessToken=abc; b=2", "accessToken")).isEqualTo("abc");
+    assertThat(value("a=1;accessToken=\"abc\"", "accessToken")).isEqualTo("abc");
+    assertThat(value("a=1; accessToken=abc==  ", "accessToken")).isEqualTo("abc==");
+  }
+
+  @Test
+  void itShouldOnlyMatchWholeCookieNames() {
+    assertThat(CookieUtil.findCookieValue("xaccessToken=abc", "accessToken")).isEqualTo(-1);
+    assertThat(CookieUtil.findCookieValue("accessTokenOld=abc", "accessToken")).isEqualTo(-1);
+    assertThat(CookieUtil.findCookieValue("a=accessToken=abc", "accessToken")).isEqualTo(-1);
+    assertThat(CookieUtil.findCookieValue("a=1; accessToken", "accessToken")).isEqualTo(-1);
+    assertThat(CookieUtil.findCookieValue(null, "accessToken")).isEqualTo(-1);
+  }
+
+  private static String value(String header, String name) {
+    int start = CookieUtil.findCookieValue(header, name);
+    return header.substring(start, CookieUtil.cookieValueEnd(header, start));
+  }
+}
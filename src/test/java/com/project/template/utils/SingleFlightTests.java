@@ -0,0 +1,179 @@
+package com.project.template.utils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+public class SingleFlightTests {
+
+  private static final int CALLERS = 16;
+
+  private final ExecutorService executor = Executors.newFixedThreadPool(CALLERS);
+  private final List<Thread> callerThreads = new ArrayList<>();
+
+  @AfterEach
+  void tearDown() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  void itShouldRunOneLoadForConcurrentCallers() throws Exception {
+    SingleFlight<String, String> singleFlight = new SingleFlight<>(Duration.ofSeconds(5));
+    AtomicInteger loads = new AtomicInteger();
+    CountDownLatch release = new CountDownLatch(1);
+
+    List<Future<String>> results = submitCallers(() ->
+      singleFlight.execute("user@gmail.com", () -> {
+        loads.incrementAndGet();
+        await(release);
+        return "user";
+      })
+    );
+    awaitAllBlocked();
+    release.countDown();
+
+    for (Future<String> result : results) {
+      assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo("user");
+    }
+    assertThat(loads).hasValue(1);
+  }
+
+  @Test
+  void itShouldHandWaitingCallersTheirOwnCopy() throws Exception {
+    SingleFlight<String, StringBuilder> singleFlight = new SingleFlight<>(
+      Duration.ofSeconds(5),
+      StringBuilder::new
+    );
+    StringBuilder loaded = new StringBuilder("user");
+    CountDownLatch release = new CountDownLatch(1);
+
+    List<Future<StringBuilder>> results = new ArrayList<>();
+    for (int i = 0; i < CALLERS; i++) {
+      results.add(
+        executor.submit(() -> {
+          synchronized (callerThreads) {
+            callerThreads.add(Thread.currentThread());
+          }
+          return singleFlight.execute("user@gmail.com", () -> {
+            await(release);
+            return loaded;
+          });
+        })
+      );
+    }
+    awaitAllBlocked();
+    release.countDown();
+
+    Set<StringBuilder> distinct = Collections.newSetFromMap(new IdentityHashMap<>());
+    for (Future<StringBuilder> result : results) {
+      StringBuilder value = result.get(5, TimeUnit.SECONDS);
+      assertThat(value.toString()).isEqualTo("user");
+      distinct.add(value);
+    }
+    assertThat(distinct).hasSize(CALLERS).containsOnlyOnce(loaded);
+  }
+
+  @Test
+  void itShouldPropagateTheLoadErrorToEveryCaller() throws Exception {
+    SingleFlight<String, String> singleFlight = new SingleFlight<>(Duration.ofSeconds(5));
+    CountDownLatch release = new CountDownLatch(1);
+    IllegalStateException failure = new IllegalStateException("database down");
+
+    List<Future<String>> results = submitCallers(() ->
+      singleFlight.execute("user@gmail.com", () -> {
+        await(release);
+        throw failure;
+      })
+    );
+    awaitAllBlocked();
+    release.countDown();
+
+    for (Future<String> result : results) {
+      assertThatThrownBy(() -> result.get(5, TimeUnit.SECONDS))
+        .hasCause(failure);
+    }
+  }
+
+  @Test
+  void itShouldStopWaitingAfterTheTimeout() throws Exception {
+    SingleFlight<String, String> singleFlight = new SingleFlight<>(Duration.ofMillis(50));
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    Future<String> leader = executor.submit(() ->
+      singleFlight.execute("user@gmail.com", () -> {
+        started.countDown();
+        await(release);
+        return "user";
+      })
+    );
+    await(started);
+
+    assertThatThrownBy(() -> singleFlight.execute("user@gmail.com", () -> "other"))
+      .isInstanceOf(IllegalStateException.class)
+      .hasMessageContaining("Timed out");
+    release.countDown();
+    assertThat(leader.get(5, TimeUnit.SECONDS)).isEqualTo("user");
+    assertThat(singleFlight.execute("user@gmail.com", () -> "next")).isEqualTo("next");
+  }
+
+  private List<Future<String>> submitCallers(Supplier<String> call) {
+    List<Future<String>> results = new ArrayList<>();
+    for (int i = 0; i < CALLERS; i++) {
+      results.add(
+        executor.submit(() -> {
+          synchronized (callerThreads) {
+            callerThreads.add(Thread.currentThread());
+          }
+          return call.get();
+        })
+      );
+    }
+    return results;
+  }
+
+  /**
+   * Every caller is parked, either the one loading on the latch or the others
+   * on the shared load.
+   */
+  private void awaitAllBlocked() throws InterruptedException {
+    long deadline = System.currentTimeMillis() + 5000;
+    while (System.currentTimeMillis() < deadline) {
+      synchronized (callerThreads) {
+        if (
+          callerThreads.size() == CALLERS &&
+          callerThreads
+            .stream()
+            .allMatch(thread ->
+              thread.getState() == Thread.State.WAITING ||
+              thread.getState() == Thread.State.TIMED_WAITING
+            )
+        ) return;
+      }
+      Thread.sleep(5);
+    }
+    throw new AssertionError("Callers never blocked");
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      latch.await(5, TimeUnit.SECONDS);
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
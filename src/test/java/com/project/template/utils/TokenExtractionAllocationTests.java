@@ -0,0 +1,60 @@
+package com.project.template.utils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.sun.management.ThreadMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.Callable;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Allocation gate for the token path, part of mvn test: bytes the current
+ * thread allocates per call of TokenExtractionBenchmark's headerScan and
+ * filterPath, counted by ThreadMXBean after a warmup so the JIT compiled
+ * them. TokenExtractionBenchmark measures the same paths with JMH.
+ */
+public class TokenExtractionAllocationTests {
+
+  // a 300 character JWT: String header plus its byte[] is about 350 bytes.
+  // After the rest of the suite, whose calls (malformed cookies among them)
+  // the JIT compiled these methods for, it measures 472
+  static final long MAX_BYTES_PER_REQUEST = 512;
+  // measured at 15.5 KB alone and 16.5 KB after the rest of the suite, the
+  // jjwt parse is most of it (Base64 and JSON copies, claim maps)
+  static final long MAX_FILTER_BYTES_PER_REQUEST = 18 * 1024;
+
+  private static final int WARMUP_CALLS = 20_000;
+  private static final int MEASURED_CALLS = 5_000;
+
+  private final ThreadMXBean threadBean = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+  private final TokenExtractionBenchmark paths = new TokenExtractionBenchmark();
+
+  @BeforeEach
+  void setUp() throws Exception {
+    paths.setUp();
+  }
+
+  @Test
+  @DisplayName("It should only allocate the token when reading the access cookie.")
+  void itShouldOnlyAllocateTheTokenWhenReadingTheAccessCookie() throws Exception {
+    assertThat(bytesPerCall(paths::headerScan))
+      .isLessThanOrEqualTo(MAX_BYTES_PER_REQUEST);
+  }
+
+  @Test
+  @DisplayName("It should keep the filter pass within its allocation budget.")
+  void itShouldKeepTheFilterPassWithinItsAllocationBudget() throws Exception {
+    assertThat(paths.filterPath()).isNotNull();
+    assertThat(bytesPerCall(paths::filterPath))
+      .isLessThanOrEqualTo(MAX_FILTER_BYTES_PER_REQUEST);
+  }
+
+  private long bytesPerCall(Callable<?> path) throws Exception {
+    for (int i = 0; i < WARMUP_CALLS; i++) path.call();
+    long before = threadBean.getCurrentThreadAllocatedBytes();
+    for (int i = 0; i < MEASURED_CALLS; i++) path.call();
+    return (threadBean.getCurrentThreadAllocatedBytes() - before) / MEASURED_CALLS;
+  }
+}
@@ -0,0 +1,194 @@
+package com.project.template.utils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.project.template.config.JwtKeyRing;
+import com.project.template.config.JwtSigningProperties;
+import com.project.template.config.PublicRouteMatcher;
+import com.project.template.config.TokenAuthenticationFilter;
+import com.project.template.model.User;
+import com.project.template.service.impl.TokenProviderImpl;
+import jakarta.servlet.FilterChain;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+import javax.crypto.Cipher;
+import javax.crypto.spec.SecretKeySpec;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * Bytes allocated to get the JWT out of an authenticated request's Cookie
+ * header: the header scan and in-place decrypt used by
+ * TokenAuthenticationFilter against the previous path (Cookie objects, a
+ * fresh key and Cipher, Base64 and cipher output arrays), and the whole
+ * stateless filter pass including the jjwt parse and the Authentication it
+ * builds. The run fails on the budgets of TokenExtractionAllocationTests,
+ * which enforces them in mvn test without JMH.
+ *
+ * Run it by hand for timings after touching the filter, the cipher or
+ * CookieUtil: mvn -Pbenchmark test -Dtest=TokenExtractionBenchmark
+ */
+@Tag("benchmark")
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TokenExtractionBenchmark {
+
+  private static final String ACCESS_TOKEN_COOKIE = "accessToken";
+  private static final String TOKEN_SECRET =
+    "JKppIO23J423NASDKJHxccxa2133ASKDFOEW3434423N13sndmas2123LXCKLJKppIO23J423NASDKJHxccxa2133ASKDFOEW3434423N13sndmas2123LXCKL";
+
+  private String cookieHeader;
+  private TokenAuthenticationFilter filter;
+  private MockHttpServletRequest request;
+  private final MockHttpServletResponse response = new MockHttpServletResponse();
+  private final FilterChain chain = (servletRequest, servletResponse) -> {};
+
+  @Setup(Level.Trial)
+  public void setUp() throws Exception {
+    String jwt =
+      "eyJhbGciOiJIUzUxMiJ9." +
+      Base64
+        .getUrlEncoder()
+        .withoutPadding()
+        .encodeToString(
+          "{\"sub\":\"someone@gmail.com\",\"uid\":42,\"name\":\"Someone\",\"ver\":0,\"auth\":[\"DEFAULT_ROLE\"],\"iat\":1700000000,\"exp\":1700003600}".getBytes(
+              StandardCharsets.UTF_8
+            )
+        ) +
+      "." +
+      "x".repeat(86);
+    cookieHeader =
+      "theme=dark; " +
+      ACCESS_TOKEN_COOKIE +
+      "=" +
+      SecurityCipher.encrypt(jwt) +
+      "; refreshToken=" +
+      SecurityCipher.encrypt(jwt);
+    setUpFilter();
+  }
+
+  /**
+   * Stateless mode, the principal comes from the token's claims.
+   */
+  private void setUpFilter() throws Exception {
+    TokenProviderImpl tokenProvider = new TokenProviderImpl(
+      new JwtKeyRing(TOKEN_SECRET, new JwtSigningProperties())
+    );
+    ReflectionTestUtils.setField(tokenProvider, "tokenExpirationMsec", 3600000L);
+    String signedJwt = tokenProvider
+      .generateAccessToken(
+        User.builder().id(42L).name("Someone").email("someone@gmail.com").build()
+      )
+      .getTokenValue();
+
+    filter = new TokenAuthenticationFilter();
+    ReflectionTestUtils.setField(filter, "accessTokenCookieName", ACCESS_TOKEN_COOKIE);
+    ReflectionTestUtils.setField(filter, "statelessAuth", true);
+    ReflectionTestUtils.setField(filter, "tokenProvider", tokenProvider);
+    ReflectionTestUtils.setField(filter, "tokenVersionRegistry", new TokenVersionRegistry());
+    ReflectionTestUtils.setField(filter, "publicRouteMatcher", new PublicRouteMatcher());
+    request = new MockHttpServletRequest("GET", "/api/v1/users/me");
+    request.addHeader(
+      HttpHeaders.COOKIE,
+      "theme=dark; " + ACCESS_TOKEN_COOKIE + "=" + SecurityCipher.encrypt(signedJwt)
+    );
+  }
+
+  @Benchmark
+  public String headerScan() {
+    int start = CookieUtil.findCookieValue(cookieHeader, ACCESS_TOKEN_COOKIE);
+    int end = CookieUtil.cookieValueEnd(cookieHeader, start);
+    return SecurityCipher.decrypt(cookieHeader, start, end, true);
+  }
+
+  @Benchmark
+  public Authentication filterPath() throws Exception {
+    filter.doFilter(request, response, chain);
+    Authentication authentication = SecurityContextHolder
+      .getContext()
+      .getAuthentication();
+    SecurityContextHolder.clearContext();
+    return authentication;
+  }
+
+  @Benchmark
+  public String previousPath() throws Exception {
+    for (String cookie : cookieHeader.split("; ")) {
+      int separator = cookie.indexOf('=');
+      if (!cookie.substring(0, separator).equals(ACCESS_TOKEN_COOKIE)) continue;
+      String value = cookie.substring(separator + 1);
+      byte[] key = MessageDigest
+        .getInstance("SHA-1")
+        .digest("secureKey".getBytes(StandardCharsets.UTF_8));
+      Cipher cipher = Cipher.getInstance("AES/ECB/PKCS5Padding");
+      cipher.init(Cipher.DECRYPT_MODE, new SecretKeySpec(Arrays.copyOf(key, 16), "AES"));
+      return new String(cipher.doFinal(Base64.getDecoder().decode(value)));
+    }
+    return null;
+  }
+
+  @Test
+  void run() throws Exception {
+    Collection<RunResult> results = new Runner(
+      new OptionsBuilder()
+        .include(TokenExtractionBenchmark.class.getName())
+        .addProfiler(GCProfiler.class)
+        .build()
+    )
+      .run();
+
+    assertThat(bytesPerRequest(results, "headerScan"))
+      .isLessThanOrEqualTo(TokenExtractionAllocationTests.MAX_BYTES_PER_REQUEST);
+    assertThat(bytesPerRequest(results, "filterPath"))
+      .isLessThanOrEqualTo(
+        TokenExtractionAllocationTests.MAX_FILTER_BYTES_PER_REQUEST
+      );
+  }
+
+  private static double bytesPerRequest(Collection<RunResult> results, String benchmark) {
+    RunResult run = results
+      .stream()
+      .filter(result -> result.getParams().getBenchmark().endsWith("." + benchmark))
+      .findFirst()
+      .orElseThrow();
+    // JMH prefixes the profiler's metrics with "·"
+    return run
+      .getSecondaryResults()
+      .entrySet()
+      .stream()
+      .filter(result -> result.getKey().endsWith("gc.alloc.rate.norm"))
+      .findFirst()
+      .orElseThrow()
+      .getValue()
+      .getScore();
+  }
+}